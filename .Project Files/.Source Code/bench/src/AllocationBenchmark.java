@@ -0,0 +1,146 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Allocation Benchmark
+ * Runs ClientScheduler() against a recorded server conversation held in memory and reports the number of bytes
+ * allocated and the time taken for each scheduled job. No socket is used so only the client's own work is measured:
+ * reading JOBN and RESC replies, choosing a server and encoding SCHD.
+ *
+ * The conversation is generated so that it matches what the client sends with a refresh interval of 1:
+ *
+ *      REDY      -> JOBN ...
+ *      RESC All  -> DATA, one record for each OK, .
+ *      SCHD      -> OK
+ *      REDY      -> NONE once all jobs have been sent
+ *
+ * Usage:
+ *      java AllocationBenchmark [-a algo_name] [-s servers] [-j jobs]
+ */
+public class AllocationBenchmark {
+
+    static final String[] SERVER_TYPES = {"tiny", "small", "medium", "large", "xlarge"};
+    static final int[] SERVER_CORES    = {1, 2, 4, 8, 16};
+
+    public static void main(String args[]) {
+
+        String algorithmName = "bf";
+        int servers = 100;
+        int jobs = 20000;
+
+        for(int i = 0; i < args.length; i++) {
+
+            if(args[i].equals("-a"))
+                algorithmName = args[++i];
+            else if(args[i].equals("-s"))
+                servers = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-j"))
+                jobs = Integer.parseInt(args[++i]);
+
+        }
+
+        Client.algorithm = policyName(algorithmName);
+        Client.refreshInterval = 1;
+
+        byte[] conversation = createConversation(servers, jobs, 1024);
+        OutputStream discard = new OutputStream() {
+            @Override public void write(int b) { }
+            @Override public void write(byte[] b, int off, int len) { }
+        };
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // Warm up so the JIT has compiled the scheduling loop before it is measured
+        for(int i = 0; i < 5; i++)
+            new Client(new MessageCodec(new StreamTransport(new ByteArrayInputStream(conversation), discard))).ClientScheduler();
+
+        int rounds = 10;
+        long totalBytes = 0, totalTime = 0;
+
+        for(int i = 0; i < rounds; i++) {
+
+            Client client = new Client(new MessageCodec(new StreamTransport(new ByteArrayInputStream(conversation), discard)));
+
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long timeBefore = System.nanoTime();
+
+            client.ClientScheduler();
+
+            totalTime += System.nanoTime() - timeBefore;
+            totalBytes += threads.getThreadAllocatedBytes(thread) - bytesBefore;
+
+        }
+
+        long scheduledJobs = (long) rounds * jobs;
+        System.out.println("algorithm: " + algorithmName + ", servers: " + servers + ", jobs: " + jobs);
+        System.out.printf("bytes allocated per job: %.1f%n", (double) totalBytes / scheduledJobs);
+        System.out.printf("time per job: %.0f ns%n", (double) totalTime / scheduledJobs);
+
+    }
+
+    // Unknown names use All To Largest, the client's default
+    static String policyName(String algorithmName) {
+        return Client.isPolicy(algorithmName) ? algorithmName : "atl";
+    }
+
+    /**
+     * Create the replies of a server with the given number of idle servers to a client scheduling the given number
+     * of jobs. Every server reports all of its resources as available so every job fits without waiting.
+     */
+    static byte[] createConversation(int servers, int jobs, long seed) {
+
+        Random random = new Random(seed);
+        StringBuilder records = new StringBuilder();
+
+        records.append("DATA\n");
+        for(int type = 0; type < SERVER_TYPES.length; type++) {
+
+            // Any servers left over are added to the largest type
+            int count = servers / SERVER_TYPES.length;
+            if(type == SERVER_TYPES.length - 1)
+                count = servers - count * (SERVER_TYPES.length - 1);
+
+            int cores = SERVER_CORES[type];
+            for(int id = 0; id < count; id++) {
+                records.append(SERVER_TYPES[type]).append(' ').append(id).append(" 2 0 ")
+                        .append(cores).append(' ').append(cores * 4000).append(' ').append(cores * 16000).append('\n');
+            }
+
+        }
+        records.append(".\n");
+
+        ByteArrayOutputStream conversation = new ByteArrayOutputStream();
+        int submitTime = 0;
+
+        for(int i = 0; i < jobs; i++) {
+
+            submitTime += random.nextInt(100);
+            int cores = 1 << random.nextInt(SERVER_CORES.length);
+            String job = "JOBN " + submitTime + " " + i + " " + (1 + random.nextInt(5000)) + " " + cores + " " +
+                            (1 + random.nextInt(cores * 4000)) + " " + (1 + random.nextInt(cores * 16000)) + "\n";
+
+            // The first job uses the initial RESC All, every other job is preceded by its own
+            write(conversation, job);
+            write(conversation, records.toString());
+            write(conversation, "OK\n");
+
+        }
+
+        write(conversation, "NONE\n");
+        return conversation.toByteArray();
+
+    }
+
+    static void write(ByteArrayOutputStream out, String text) {
+
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        out.write(bytes, 0, bytes.length);
+
+    }
+
+}
@@ -0,0 +1,109 @@
+import java.io.File;
+
+/**
+ * Lookahead Benchmark
+ * Compares scheduling each job as soon as it is received with placing windows of jobs together ("-w window", see
+ * Client.scheduleWindow()). Every combination of config, algorithm and window is run in-process against a
+ * SimulatedServer, which submits the next job for each REDY so a window can be filled.
+ *
+ * For each run the results of the simulation and the client's decision latency are reported:
+ *
+ *      util    - core seconds used by jobs as a fraction of the core seconds of the rented servers
+ *      cost    - total rental cost of the servers used
+ *      wait    - average waiting time, including the time a job waited for the rest of its window
+ *      turn    - average turnaround time
+ *      select  - mean time to choose a server for a job, in microseconds
+ *      cycle   - mean time from the REDY of a job, or the first job of its window, until its SCHD was accepted
+ *
+ * Windows are given in the same form as the client's "-w", window[:span].
+ *
+ * Usage:
+ *      java LookaheadBenchmark [-c config.xml,...] [-a algo_name,...] [-w window[:span],...] [-j jobs]
+ */
+public class LookaheadBenchmark {
+
+    static final String CONFIG_DIRECTORY = "../Client Testing/configs/";
+
+    public static void main(String args[]) throws Exception {
+
+        String[] configs = {"config_simple3.xml", "config_simple5.xml", "ds-config-s3-2.xml"};
+        String[] algorithms = {"ff", "bf", "wf"};
+        String[] windows = {"1", "2", "4", "8", "16", "4:60", "8:60", "16:60"};
+        int jobs = 2000;
+
+        for(int i = 0; i < args.length; i++) {
+
+            if(args[i].equals("-c"))
+                configs = args[++i].split(",");
+            else if(args[i].equals("-a"))
+                algorithms = args[++i].split(",");
+            else if(args[i].equals("-w"))
+                windows = args[++i].split(",");
+            else if(args[i].equals("-j"))
+                jobs = Integer.parseInt(args[++i]);
+
+        }
+
+        Client.statistics = "text";
+
+        System.out.printf("%-20s %5s %6s %7s %10s %10s %10s %10s %10s%n",
+                "config", "algo", "window", "util", "cost", "wait", "turn", "select us", "cycle us");
+
+        for(String config: configs) {
+
+            File file = new File(config);
+            if(!file.exists())
+                file = new File(CONFIG_DIRECTORY + config);
+
+            for(String algorithmName: algorithms) {
+                for(String window: windows) {
+
+                    // Warm up once so the JIT has compiled the scheduling loop before the decision latency is measured
+                    run(file, algorithmName, window, jobs);
+                    run(file, algorithmName, window, jobs).print(file.getName(), algorithmName, window);
+
+                }
+            }
+
+        }
+
+    }
+
+    static class Result {
+
+        SimulatedServer server;
+        ClientMetrics metrics;
+
+        void print(String config, String algorithmName, String window) {
+
+            SimulatedServer.Results results = server.results();
+
+            System.out.printf("%-20s %5s %6s %6.1f%% %10s %10.2f %10.2f %10.2f %10.2f%n", config, algorithmName,
+                    window, results.utilisation * 100, String.format("$%.2f", results.cost), results.avgWaiting,
+                    results.avgTurnaround, metrics.select.mean() / 1000, metrics.cycle.mean() / 1000);
+
+        }
+
+    }
+
+    static Result run(File config, String algorithmName, String window, int jobs) throws Exception {
+
+        String[] spec = window.split(":", 2);
+        Client.algorithm = AllocationBenchmark.policyName(algorithmName);
+        Client.lookahead = Integer.parseInt(spec[0]);
+        Client.lookaheadSpan = spec.length > 1 ? Integer.parseInt(spec[1]) : 0;
+
+        Result result = new Result();
+        result.server = new SimulatedServer(config, jobs, 1);
+
+        Client client = new Client(new MessageCodec(result.server));
+        client.ClientSetup();
+        client.ClientScheduler();
+        client.sendCommand("QUIT");
+
+        result.metrics = client.metrics;
+        return result;
+
+    }
+
+}
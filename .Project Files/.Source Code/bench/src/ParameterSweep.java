@@ -0,0 +1,439 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parameter Sweep
+ * Runs every combination of config, algorithm and client option at once on a fixed size thread pool, each against
+ * its own in-process SimulatedServer, and collects the results of every run into one report. A regression sweep of
+ * every config in "Client Testing/configs" and all four algorithms takes seconds, where the test scripts start
+ * ds-server for each config and algorithm one after another and sleep between each step.
+ *
+ * Each run is a separate Client, the options of the run are given to the client directly rather than through the
+ * program arguments, so runs with different options do not share any state. The columns of the report are:
+ *
+ *      config, algorithm, fitness, refresh, query,     - the run
+ *      window
+ *      jobs, completed, servers_used                   - jobs submitted and completed, servers booted
+ *      makespan                                        - when the last job completed
+ *      cost, utilisation                               - rental cost, and core seconds used of those rented
+ *      avg_wait, avg_turnaround                        - of the completed jobs
+ *      select_us, select_p99_us, cycle_us              - the client's decision latency (see ClientMetrics), measured
+ *                                                        while other runs use the other cores
+ *      round_trips, resc, records, bytes               - commands that waited for a reply, refreshes of the
+ *                                                        servers, server records read and bytes sent and received,
+ *                                                        per job
+ *      ms                                              - time taken by the run
+ *      schedule                                        - hash of the server each job was scheduled to
+ *      result                                          - PASSED if the schedule is the same as in the report given
+ *                                                        to "-compare", NOT PASSED if it differs, NEW if the run
+ *                                                        is not in that report, ERROR if the run failed
+ *
+ * The report is written as CSV, or as a JSON array if the file given to "-o" ends in ".json". Without "-o" the CSV is
+ * written to the terminal. "-compare" reads a CSV report of an earlier sweep, so a change that should not alter any
+ * decision can be checked in the same way the test scripts diff the server's log.
+ *
+ * Usage:
+ *      java ParameterSweep [-c config.xml,...] [-a algo_name,...] [-f fitness,...]
+ *                          [-r refresh_interval|auto[:max],...] [-q all|type,...] [-w window[:span],...]
+ *                          [-j jobs] [-t threads] [-o report.csv|report.json] [-compare report.csv]
+ */
+public class ParameterSweep {
+
+    static final String CONFIG_DIRECTORY = "../Client Testing/configs/";
+
+    static final String[] COLUMNS = {"config", "algorithm", "fitness", "refresh", "query", "window", "jobs",
+            "completed", "servers_used", "makespan", "cost", "utilisation", "avg_wait", "avg_turnaround", "select_us",
+            "select_p99_us", "cycle_us", "round_trips", "resc", "records", "bytes", "ms", "schedule", "result"};
+
+    // Number of columns that are options of the run
+    static final int RUN_COLUMNS = 6;
+
+    public static void main(String args[]) throws Exception {
+
+        List<String> configs = null;
+        String[] algorithms = {"atl", "ff", "bf", "wf"};
+        String[] fitnesses = {"cores"};
+        String[] refreshIntervals = {"1"};
+        String[] queries = {"type"};
+        String[] windows = {"1"};
+        int jobs = -1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = null, compare = null;
+
+        for(int i = 0; i < args.length; i++) {
+
+            if(args[i].equals("-c"))
+                configs = Arrays.asList(args[++i].split(","));
+            else if(args[i].equals("-a"))
+                algorithms = args[++i].split(",");
+            else if(args[i].equals("-f"))
+                fitnesses = args[++i].split(",");
+            else if(args[i].equals("-r"))
+                refreshIntervals = args[++i].split(",");
+            else if(args[i].equals("-q"))
+                queries = args[++i].split(",");
+            else if(args[i].equals("-w"))
+                windows = args[++i].split(",");
+            else if(args[i].equals("-j"))
+                jobs = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-t"))
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            else if(args[i].equals("-o"))
+                output = args[++i];
+            else if(args[i].equals("-compare"))
+                compare = args[++i];
+
+        }
+
+        // Every config of the test scripts
+        if(configs == null) {
+
+            configs = new ArrayList<>();
+            String[] files = new File(CONFIG_DIRECTORY).list((directory, name) -> name.endsWith(".xml"));
+            if(files != null) {
+                Arrays.sort(files);
+                configs.addAll(Arrays.asList(files));
+            }
+
+        }
+
+        if(configs.isEmpty()) {
+            System.out.println("Usage:");
+            System.out.println("    java ParameterSweep [-c config.xml,...] [-a algo_name,...] [-f fitness,...] " +
+                    "[-r refresh_interval|auto[:max],...] [-q all|type,...] [-w window[:span],...] [-j jobs] " +
+                    "[-t threads] [-o report.csv|report.json] [-compare report.csv]");
+            return;
+        }
+
+        ArrayList<Run> runs = new ArrayList<>();
+        for(String config: configs)
+            for(String algorithm: algorithms)
+                for(String fitness: fitnesses)
+                    for(String refresh: refreshIntervals)
+                        for(String query: queries)
+                            for(String window: windows)
+                                runs.add(new Run(config, algorithm, fitness, refresh, query, window, jobs));
+
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, runs.size()));
+        ArrayList<Future<?>> results = new ArrayList<>();
+        for(Run run: runs)
+            results.add(pool.submit(run::call));
+        pool.shutdown();
+
+        for(int i = 0; i < runs.size(); i++) {
+
+            try {
+                results.get(i).get();
+            } catch(InterruptedException | ExecutionException e) {
+                runs.get(i).error = String.valueOf(e.getCause());
+            }
+
+        }
+
+        long time = System.nanoTime() - start;
+
+        // Each run is checked against the same run of an earlier report
+        HashMap<String, String> expected = compare != null ? readSchedules(compare) : new HashMap<String, String>();
+        int passed = 0, failed = 0;
+
+        for(Run run: runs) {
+
+            if(run.error != null)
+                run.result = "ERROR";
+            else if(compare == null)
+                run.result = "";
+            else if(!expected.containsKey(run.key()))
+                run.result = "NEW";
+            else if(expected.get(run.key()).equals(run.schedule()))
+                run.result = "PASSED";
+            else
+                run.result = "NOT PASSED";
+
+            if(run.result.equals("PASSED"))
+                passed++;
+            else if(run.error != null || run.result.equals("NOT PASSED"))
+                failed++;
+
+        }
+
+        if(output == null)
+            writeCSV(System.out, runs);
+        else {
+
+            try(PrintStream out = new PrintStream(output, "UTF-8")) {
+
+                if(output.endsWith(".json"))
+                    writeJSON(out, runs);
+                else
+                    writeCSV(out, runs);
+
+            }
+
+        }
+
+        long runTime = 0;
+        for(Run run: runs)
+            runTime += run.time;
+
+        System.out.printf("# %d runs on %d threads in %.3f s, %.3f s of runs%s%n", runs.size(),
+                Math.min(threads, runs.size()), time / 1e9, runTime / 1e9,
+                compare != null ? String.format(", %d passed, %d not passed", passed, failed) : "");
+
+        for(Run run: runs) {
+            if(run.error != null)
+                System.out.println("# " + run.key() + " failed: " + run.error);
+        }
+
+    }
+
+    /**
+     * A single client session against a simulated server.
+     */
+    static class Run {
+
+        final String config, algorithm, fitness, refresh, query, window;
+        final int jobs;
+
+        // Results
+        SimulatedServer.Results results = null;
+        ClientMetrics metrics = null;
+        int jobsScheduled = 0;
+        long bytes = 0;
+        long time = 0;
+        String error = null;
+        String result = "";
+
+        Run(String config, String algorithm, String fitness, String refresh, String query, String window, int jobs) {
+
+            this.config = config;
+            this.algorithm = algorithm;
+            this.fitness = fitness;
+            this.refresh = refresh;
+            this.query = query;
+            this.window = window;
+            this.jobs = jobs;
+
+        }
+
+        void call() {
+
+            try {
+
+                File file = new File(config);
+                if(!file.exists())
+                    file = new File(CONFIG_DIRECTORY + config);
+
+                SchedulingPolicy policy = Client.createPolicy(algorithm);
+                if(policy == null)
+                    throw new IllegalArgumentException("Unknown algorithm " + algorithm + ".");
+
+                String[] spec = window.split(":", 2);
+                String[] refreshSpec = refresh.split(":", 2);
+                boolean adaptive = refreshSpec[0].equals("auto");
+                long start = System.nanoTime();
+
+                if(!query.equals("all") && !query.equals("type"))
+                    throw new IllegalArgumentException("Unknown query " + query + ".");
+
+                SimulatedServer server = new SimulatedServer(file, jobs, 1);
+                MessageCodec codec = new MessageCodec(server);
+                Client client = new Client(codec);
+                client.policy = policy;
+                client.fitness = Client.createFitness(fitness);
+                client.resourceModel = new ResourceModel(adaptive ? 1 : Integer.parseInt(refreshSpec[0]));
+                client.driftMonitor = !adaptive ? null :
+                        new DriftMonitor(refreshSpec.length > 1 ? Integer.parseInt(refreshSpec[1]) : 64);
+                client.queryPlanner = new QueryPlanner(query.equals("type"));
+                client.lookaheadWindow = Math.max(1, Integer.parseInt(spec[0]));
+                client.lookaheadWindowSpan = spec.length > 1 ? Math.max(0, Integer.parseInt(spec[1])) : 0;
+                client.metrics = new ClientMetrics();
+
+                client.ClientSetup();
+                client.ClientScheduler();
+                client.sendCommand("QUIT");
+
+                time = System.nanoTime() - start;
+                results = server.results();
+                metrics = client.metrics;
+                jobsScheduled = client.jobsScheduled;
+                bytes = codec.bytesSent() + codec.bytesReceived();
+
+            } catch(IOException | RuntimeException e) {
+                error = String.valueOf(e);
+            }
+
+        }
+
+        String key() {
+            return config + "," + algorithm + "," + fitness + "," + refresh + "," + query + "," + window;
+        }
+
+        String schedule() {
+            return results != null ? Long.toHexString(results.schedule) : "";
+        }
+
+        // Values of the columns, numbers are formatted the same way for CSV and JSON
+        String[] values() {
+
+            String[] run = {config, algorithm, fitness, refresh, query, window};
+            if(results == null) {
+                String[] values = Arrays.copyOf(run, COLUMNS.length);
+                Arrays.fill(values, run.length, values.length, "");
+                values[values.length - 1] = result;
+                return values;
+            }
+
+            String[] values = Arrays.copyOf(run, COLUMNS.length);
+            int v = run.length;
+            values[v++] = String.valueOf(results.submitted);
+            values[v++] = String.valueOf(results.completed);
+            values[v++] = String.valueOf(results.serversUsed);
+            values[v++] = String.valueOf(results.endTime);
+            values[v++] = format("%.2f", results.cost);
+            values[v++] = format("%.4f", results.utilisation);
+            values[v++] = format("%.2f", results.avgWaiting);
+            values[v++] = format("%.2f", results.avgTurnaround);
+            values[v++] = format("%.2f", metrics.select.mean() / 1000);
+            values[v++] = format("%.2f", metrics.select.percentile(99) / 1000.0);
+            values[v++] = format("%.2f", metrics.cycle.mean() / 1000);
+            values[v++] = format("%.2f", (double) metrics.roundTrips / Math.max(1, jobsScheduled));
+            values[v++] = format("%.3f", (double) metrics.resc.count() / Math.max(1, jobsScheduled));
+            values[v++] = format("%.2f", (double) metrics.records / Math.max(1, jobsScheduled));
+            values[v++] = format("%.1f", (double) bytes / Math.max(1, jobsScheduled));
+            values[v++] = format("%.1f", time / 1e6);
+            values[v++] = schedule();
+            values[v] = result;
+            return values;
+
+        }
+
+    }
+
+    static String format(String format, double value) {
+        return String.format(Locale.ROOT, format, value);
+    }
+
+    static void writeCSV(PrintStream out, List<Run> runs) {
+
+        out.println(String.join(",", COLUMNS));
+        for(Run run: runs) {
+
+            String[] values = run.values();
+            for(int v = 0; v < values.length; v++)
+                values[v] = values[v].contains(",") ? "\"" + values[v].replace("\"", "\"\"") + "\"" : values[v];
+
+            out.println(String.join(",", values));
+
+        }
+
+    }
+
+    static void writeJSON(PrintStream out, List<Run> runs) {
+
+        out.println("[");
+        for(int r = 0; r < runs.size(); r++) {
+
+            String[] values = runs.get(r).values();
+            StringBuilder json = new StringBuilder("  {");
+
+            for(int v = 0; v < values.length; v++) {
+
+                if(v > 0)
+                    json.append(',');
+                json.append('"').append(COLUMNS[v]).append("\":");
+
+                // Columns after the options of the run are numbers, except the schedule hash and the result
+                boolean number = v >= RUN_COLUMNS && v < values.length - 2 && !values[v].isEmpty();
+                if(number)
+                    json.append(values[v]);
+                else
+                    json.append('"').append(values[v].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+
+            }
+
+            out.println(json.append(r < runs.size() - 1 ? "}," : "}"));
+
+        }
+        out.println("]");
+
+    }
+
+    // The schedule hash of each run of a CSV report, by key()
+    static HashMap<String, String> readSchedules(String file) throws IOException {
+
+        HashMap<String, String> schedules = new HashMap<>();
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        if(lines.isEmpty())
+            return schedules;
+
+        List<String> header = Arrays.asList(lines.get(0).split(","));
+        int schedule = header.indexOf("schedule");
+
+        for(String line: lines.subList(1, lines.size())) {
+
+            List<String> values = splitCSV(line);
+            if(schedule == -1 || values.size() <= schedule)
+                continue;
+
+            schedules.put(String.join(",", values.subList(0, RUN_COLUMNS)), values.get(schedule));
+
+        }
+
+        return schedules;
+
+    }
+
+    // Split a line of CSV, a quoted value may contain commas and doubled quotes
+    static List<String> splitCSV(String line) {
+
+        ArrayList<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for(int c = 0; c < line.length(); c++) {
+
+            char ch = line.charAt(c);
+            if(quoted) {
+
+                if(ch == '"' && c + 1 < line.length() && line.charAt(c + 1) == '"') {
+                    value.append('"');
+                    c++;
+                } else if(ch == '"') {
+                    quoted = false;
+                } else {
+                    value.append(ch);
+                }
+
+            }
+            else if(ch == '"')
+                quoted = true;
+            else if(ch == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            }
+            else
+                value.append(ch);
+
+        }
+
+        values.add(value.toString());
+        return values;
+
+    }
+
+}
@@ -0,0 +1,297 @@
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Selection Benchmark
+ * Measures the server selection of each scheduling algorithm on its own, without reading any messages, in the same way
+ * a JMH average time benchmark would: a number of warm up iterations followed by measured iterations of a fixed length,
+ * reporting the mean time per selection with its 99.9% confidence interval and the bytes allocated per selection.
+ *
+ * Every combination of algorithm, server table and job stream is run:
+ *
+ *      algorithms  - the policies given to "-a", atl (AllToLargestPolicy), ff (FirstFitPolicy), bf (BestFitPolicy),
+ *                    wf (WorstFitPolicy), cost (LowestCostPolicy), ect (EarliestCompletionPolicy)
+ *      servers     - 10, 1000 and 100000 servers by default, see -s
+ *      jobs        - small:  1 to 2 cores, most fit on an idle server
+ *                    mixed:  1 to 16 cores, powers of two
+ *                    large:  8 to 16 cores, many only fit the initial capacity of an active server (fallbacks)
+ *      mode        - select: the server table does not change between selections
+ *                    update: a core is taken from each selected server and given back after the next selection, so
+ *                            two servers change between selections as with the resource model after SCHD and JCPL
+ *
+ * A third of the servers are active with some of their resources in use, a third are inactive and the rest are idle.
+ * Best-Fit and Worst-Fit use the fitness given by -f, the same as the client's "-f" (cores by default).
+ *
+ * Usage:
+ *      java SelectionBenchmark [-a algo_name] [-s servers,...] [-j jobs] [-m mode] [-f fitness] [-w warmup] [-i iterations] [-t ms]
+ */
+public class SelectionBenchmark {
+
+    static final String[] SERVER_TYPES = {"tiny", "small", "medium", "large", "xlarge"};
+    static final int[] SERVER_CORES    = {1, 2, 4, 8, 16};
+
+    static final String[] ALGORITHMS = {"atl", "ff", "bf", "wf", "cost", "ect"};
+    static final String[] JOB_SHAPES = {"small", "mixed", "large"};
+    static final String[] MODES      = {"select", "update"};
+
+    static final int JOBS_PER_STREAM = 4096;
+
+    // Selected servers are summed into this so the JIT can not remove the selection
+    static long sink = 0;
+
+    public static void main(String args[]) {
+
+        String[] algorithms = ALGORITHMS;
+        int[] serverCounts = {10, 1000, 100000};
+        String[] jobShapes = JOB_SHAPES;
+        String[] modes = MODES;
+        int warmupIterations = 3;
+        int iterations = 5;
+        int iterationTime = 500;
+
+        for(int i = 0; i < args.length; i++) {
+
+            if(args[i].equals("-a"))
+                algorithms = new String[]{args[++i]};
+            else if(args[i].equals("-s"))
+                serverCounts = parseInts(args[++i]);
+            else if(args[i].equals("-j"))
+                jobShapes = new String[]{args[++i]};
+            else if(args[i].equals("-m"))
+                modes = new String[]{args[++i]};
+            else if(args[i].equals("-f"))
+                Client.fitnessName = args[++i];
+            else if(args[i].equals("-w"))
+                warmupIterations = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-i"))
+                iterations = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-t"))
+                iterationTime = Integer.parseInt(args[++i]);
+
+        }
+
+        System.out.printf("%-24s %9s %6s %6s %5s %12s %10s %10s%n",
+                "Benchmark", "(servers)", "(jobs)", "(mode)", "Cnt", "Score", "Error", "B/op");
+
+        for(String algorithmName: algorithms) {
+            for(int servers: serverCounts) {
+                for(String jobShape: jobShapes) {
+                    for(String mode: modes) {
+                        run(algorithmName, servers, jobShape, mode, warmupIterations, iterations, iterationTime);
+                    }
+                }
+            }
+        }
+
+        // Printed so the sum is used
+        System.out.println("# " + (sink & 1));
+
+    }
+
+    static void run(String algorithmName, int servers, String jobShape, String mode, int warmupIterations,
+                    int iterations, int iterationTime) {
+
+        Client.algorithm = AllocationBenchmark.policyName(algorithmName);
+        Client client = createClient(servers, 1024);
+        Job[] jobs = createJobs(jobShape, 2048);
+        boolean update = mode.equals("update");
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for(int i = 0; i < warmupIterations; i++)
+            iteration(client, jobs, update, iterationTime);
+
+        double[] scores = new double[iterations];
+        long totalBytes = 0, totalOperations = 0;
+
+        for(int i = 0; i < iterations; i++) {
+
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long timeBefore = System.nanoTime();
+
+            long operations = iteration(client, jobs, update, iterationTime);
+
+            long time = System.nanoTime() - timeBefore;
+            totalBytes += threads.getThreadAllocatedBytes(thread) - bytesBefore;
+            totalOperations += operations;
+            scores[i] = (double) time / operations;
+
+        }
+
+        double mean = 0;
+        for(double score: scores)
+            mean += score;
+        mean /= iterations;
+
+        // 99.9% confidence interval of the mean using the normal approximation, as an estimate of JMH's error column
+        double variance = 0;
+        for(double score: scores)
+            variance += (score - mean) * (score - mean);
+        double error = iterations > 1 ? 3.29 * Math.sqrt(variance / (iterations - 1)) / Math.sqrt(iterations) : 0;
+
+        System.out.printf("%-24s %9d %6s %6s %5d %12.1f %10.1f %10.1f  ns/op%n",
+                "SelectionBenchmark." + algorithmName, servers, jobShape, mode, iterations, mean, error,
+                (double) totalBytes / totalOperations);
+
+    }
+
+    /**
+     * Run selections for the given number of milliseconds.
+     * @return the number of selections made.
+     */
+    static long iteration(Client client, Job[] jobs, boolean update, int iterationTime) {
+
+        long end = System.nanoTime() + iterationTime * 1000000L;
+        long operations = 0;
+        ServerTable servers = client.allServerInfo;
+        int lastServer = -1;
+
+        // The time is only checked every 256 selections so reading it is not measured
+        while(System.nanoTime() < end) {
+
+            for(int k = 0; k < 256; k++) {
+
+                Job job = jobs[(int) (operations++ & (JOBS_PER_STREAM - 1))];
+                int server = client.findServer(job);
+                sink += server;
+
+                // Give back the core taken from the last server and take one from the selected server, so only the
+                // server selected last differs from the initial table
+                if(update) {
+
+                    if(lastServer >= 0) {
+                        servers.cores[lastServer]++;
+                        servers.markChanged(lastServer);
+                    }
+
+                    if(server >= 0) {
+                        servers.cores[server]--;
+                        servers.markChanged(server);
+                    }
+
+                    lastServer = server;
+
+                }
+
+            }
+
+        }
+
+        if(lastServer >= 0) {
+            servers.cores[lastServer]++;
+            servers.markChanged(lastServer);
+        }
+
+        return operations;
+
+    }
+
+    /**
+     * Create a client holding a table of the given number of servers, the same as the table the client has after the
+     * initial RESC All of ClientScheduler().
+     */
+    static Client createClient(int servers, long seed) {
+
+        Random random = new Random(seed);
+        StringBuilder records = new StringBuilder();
+
+        for(int type = 0; type < SERVER_TYPES.length; type++) {
+
+            int count = servers / SERVER_TYPES.length;
+            if(type == SERVER_TYPES.length - 1)
+                count = servers - count * (SERVER_TYPES.length - 1);
+
+            int cores = SERVER_CORES[type];
+            for(int id = 0; id < count; id++) {
+
+                int state = random.nextInt(3);
+                int used = state == 0 ? random.nextInt(cores + 1) : 0;
+                int serverState = state == 0 ? ServerTable.ACTIVE : state == 1 ? ServerTable.INACTIVE : ServerTable.IDLE;
+                int availTime = state == 0 ? -1 : state == 1 ? 60 : 0;
+
+                records.append(SERVER_TYPES[type]).append(' ').append(id).append(' ').append(serverState).append(' ')
+                        .append(availTime).append(' ').append(cores - used).append(' ')
+                        .append((cores - used) * 4000).append(' ').append((cores - used) * 16000).append('\n');
+
+            }
+
+        }
+
+        OutputStream discard = new OutputStream() {
+            @Override public void write(int b) { }
+        };
+
+        byte[] bytes = records.toString().getBytes(StandardCharsets.US_ASCII);
+        MessageCodec codec = new MessageCodec(new StreamTransport(new ByteArrayInputStream(bytes), discard));
+        Client client = new Client(codec);
+
+        try {
+            while(codec.readLine())
+                client.allServerInfo.add(codec);
+        } catch(java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        // Initial capacity is the full capacity of each server type
+        client.initialAllServerInfo = client.allServerInfo.copy();
+        ServerTable initial = client.initialAllServerInfo;
+        for(int i = 0; i < initial.size; i++) {
+            int cores = SERVER_CORES[initial.type[i]];
+            initial.cores[i] = cores;
+            initial.memory[i] = cores * 4000;
+            initial.disk[i] = cores * 16000;
+        }
+
+        client.findAllServerInfoSortOrder();
+        client.findServerTypeCosts();
+        client.policy.onInit(client);
+        return client;
+
+    }
+
+    static Job[] createJobs(String jobShape, long seed) {
+
+        Random random = new Random(seed);
+        Job[] jobs = new Job[JOBS_PER_STREAM];
+
+        for(int i = 0; i < jobs.length; i++) {
+
+            int cores;
+            if(jobShape.equals("small"))
+                cores = 1 + random.nextInt(2);
+            else if(jobShape.equals("large"))
+                cores = 8 << random.nextInt(2);
+            else
+                cores = 1 << random.nextInt(SERVER_CORES.length);
+
+            Job job = new Job();
+            job.submitTime = i;
+            job.id = i;
+            job.estRuntime = 1 + random.nextInt(5000);
+            job.cores = cores;
+            job.memory = 1 + random.nextInt(cores * 4000);
+            job.disk = 1 + random.nextInt(cores * 16000);
+            jobs[i] = job;
+
+        }
+
+        return jobs;
+
+    }
+
+    static int[] parseInts(String list) {
+
+        String[] values = list.split(",");
+        int[] ints = new int[values.length];
+        for(int i = 0; i < values.length; i++)
+            ints[i] = Integer.parseInt(values[i]);
+
+        return ints;
+
+    }
+
+}
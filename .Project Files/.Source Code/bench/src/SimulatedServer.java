@@ -0,0 +1,940 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Simulated Server
+ * A stand-in for ds-server written in Java, driven by the same XML config files, so the client can be run against
+ * thousands of servers and millions of jobs without the ds-server binary, sockets or sleeps between runs.
+ *
+ * The server is a Transport: commands written by the client are handled as soon as a whole line has arrived and the
+ * replies are read back by the client, so in-memory runs use a single thread with no socket. It can also listen on a
+ * loopback port so the normal client can connect to it (see serve()).
+ *
+ *      HELO, AUTH name         -> OK
+ *      REDY                    -> JCPL end_time job_ID server_type server_ID, JOBN ..., or NONE
+ *      RESC All / Type t / Avail cores memory disk
+ *                              -> DATA, one record for each OK, .
+ *      LSTJ server_type server_ID
+ *                              -> DATA, one record (job_ID job_state start_time est_runtime cores memory disk) for
+ *                                 each OK, .
+ *      SCHD job_ID server_type server_ID
+ *                              -> OK, or ERR: if the job or server does not exist or the job can never fit the server
+ *      QUIT                    -> QUIT
+ *
+ * Jobs are generated from the job types and workload of the config with its random seed. A job runs for exactly its
+ * estimated runtime, jobs on a server start in the order they were scheduled once the server has booted and has the
+ * resources available. DATA records can also be sent in the batched form (DATA n length, every record after one OK).
+ *
+ * Usage:
+ *      java SimulatedServer -c config.xml [-j jobs] [-s scale] [-b] [-x] [-port port] [client options]
+ *
+ *          -j      number of jobs, replaces the jobcount and endtime termination conditions of the config
+ *          -s      multiply the limit of every server type
+ *          -b      send DATA records in the batched form
+ *          -x      do not send JCPL, the same as the ds-server binary in "Client Testing"
+ *          -port   listen on the port instead of running the client in-process, e.g. 8096
+ *
+ *      Any other options are read by Client.parseOptions() for the in-process client, e.g. -a bf -r 10, and an
+ *      unknown option is an error. The client's "-s" and "-c" are given as -stats text|json and -cc config_file since
+ *      -s is the scale and -c the config of the server.
+ */
+public class SimulatedServer implements Transport {
+
+    // Server states, the same as ServerTable
+    static final int INACTIVE = 0, BOOTING = 1, IDLE = 2, ACTIVE = 3;
+
+    // Job states in LSTJ records
+    static final int WAITING = 1, RUNNING = 2;
+
+    // Events, ordered by time then kind
+    static final long JOB_COMPLETION = 0, BOOT_COMPLETION = 1;
+
+    // Config
+    final SystemConfig config;
+    final ArrayList<SystemConfig.ServerType> serverTypes;
+    int endTime;
+    int jobLimit;
+
+    // Options
+    boolean sendCompletions = true;
+    boolean batchedData = false;
+
+    // Servers, in the order listed by RESC All
+    int serverCount;
+    int[] serverType, serverID, state, cores, memory, disk;
+    int[] bootStart, lastCompletion;
+    ArrayList<ArrayDeque<Integer>> waitingJobs = new ArrayList<>();
+    ArrayList<ArrayList<Integer>> serverJobs = new ArrayList<>(); // running and waiting jobs in the order scheduled
+
+    // Jobs, by job ID
+    int jobCount = 0;
+    int[] jobSubmit = new int[1024], jobRuntime = new int[1024], jobCores = new int[1024], jobMemory = new int[1024],
+            jobDisk = new int[1024], jobServer = new int[1024], jobStart = new int[1024], jobEnd = new int[1024];
+
+    // Simulation
+    Random random;
+    int now = 0;
+    int nextSubmit = 0;
+    double meanInterval = 1;
+    final PriorityQueue<Long> events = new PriorityQueue<>();
+    final ArrayDeque<Integer> completions = new ArrayDeque<>();
+    boolean quit = false;
+
+    // Servers or jobs listed by the DATA response being sent, records are only formatted when they are sent
+    boolean sendingData = false;
+    boolean dataIsJobs = false;
+    int[] dataItems = new int[16];
+    int dataCount = 0;
+    int dataSent = 0;
+    boolean dataHeaderAcknowledged = false;
+
+    // Bytes written by the client that do not make a whole line yet, and replies not yet read by the client
+    byte[] input = new byte[8192];
+    int inputLength = 0;
+    byte[] output = new byte[8192];
+    int outputStart = 0, outputEnd = 0;
+
+    public static void main(String args[]) throws Exception {
+
+        String configFile = null;
+        int jobs = -1, scale = 1, port = -1;
+        boolean batched = false, noCompletions = false;
+        ArrayList<String> clientArgs = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++) {
+
+            if(args[i].equals("-c"))
+                configFile = args[++i];
+            else if(args[i].equals("-j"))
+                jobs = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-s"))
+                scale = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-b"))
+                batched = true;
+            else if(args[i].equals("-x"))
+                noCompletions = true;
+            else if(args[i].equals("-port"))
+                port = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-stats"))
+                clientArgs.add("-s");
+            else if(args[i].equals("-cc"))
+                clientArgs.add("-c");
+            else
+                clientArgs.add(args[i]);
+
+        }
+
+        // The client options are read by Client.parseOptions() in the same way as Client.main(), a session runs in
+        // this thread so manual input can not be used
+        boolean valid = Client.parseOptions(clientArgs.toArray(new String[0]));
+        if(Client.manualInput) {
+            System.out.println("The -m client option can not be used with SimulatedServer.");
+            valid = false;
+        }
+
+        if(configFile == null || !valid) {
+            System.out.println("Usage:");
+            System.out.println("    java SimulatedServer -c config.xml [-j jobs] [-s scale] [-b] [-x] [-port port] [client options]");
+            System.out.println("    client options: the options of Client, with -stats text|json for -s and -cc config_file for -c");
+            Client.clientUsage();
+            return;
+        }
+
+        SimulatedServer server = new SimulatedServer(new File(configFile), jobs, scale);
+        server.batchedData = batched;
+        server.sendCompletions = !noCompletions;
+
+        if(port != -1) {
+            server.serve(port);
+            System.out.println(server.summary());
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        Client client = new Client(new MessageCodec(server));
+        client.ClientSetup();
+        client.ClientScheduler();
+        client.sendCommand("QUIT");
+
+        long time = System.nanoTime() - start;
+
+        if(client.trace != null)
+            client.trace.flush();
+
+        System.out.println(server.summary());
+        System.out.printf("# client time: %.3f s, %.0f jobs/s%n", time / 1e9, server.jobCount / (time / 1e9));
+
+        if(client.metrics != null)
+            client.printStatistics();
+
+    }
+
+    /**
+     * Create a server from a config file.
+     * @param jobs the number of jobs to submit, or -1 to use the termination conditions of the config.
+     * @param scale the number the limit of each server type is multiplied by.
+     */
+    public SimulatedServer(File configFile, int jobs, int scale) throws IOException {
+
+        config = SystemConfig.load(configFile);
+        if(config.jobTypes.isEmpty())
+            throw new IOException("The config must have at least one job type.");
+
+        serverTypes = config.serverTypes;
+        endTime = config.endTime != -1 ? config.endTime : 2592000;
+        jobLimit = config.jobCount != -1 ? config.jobCount : Integer.MAX_VALUE;
+
+        if(jobs >= 0) {
+            jobLimit = jobs;
+            endTime = Integer.MAX_VALUE;
+        }
+
+        for(SystemConfig.ServerType type: serverTypes)
+            type.limit *= scale;
+
+        createServers();
+        random = new Random(config.randomSeed);
+        meanInterval = meanInterval();
+        nextSubmit = nextInterval();
+
+    }
+
+    void createServers() {
+
+        serverCount = 0;
+        for(SystemConfig.ServerType type: serverTypes)
+            serverCount += type.limit;
+
+        serverType = new int[serverCount];
+        serverID = new int[serverCount];
+        state = new int[serverCount];
+        cores = new int[serverCount];
+        memory = new int[serverCount];
+        disk = new int[serverCount];
+        bootStart = new int[serverCount];
+        lastCompletion = new int[serverCount];
+
+        int i = 0;
+        for(int t = 0; t < serverTypes.size(); t++) {
+
+            SystemConfig.ServerType type = serverTypes.get(t);
+            for(int id = 0; id < type.limit; id++, i++) {
+
+                serverType[i] = t;
+                serverID[i] = id;
+                state[i] = INACTIVE;
+                cores[i] = type.coreCount;
+                memory[i] = type.memory;
+                disk[i] = type.disk;
+                bootStart[i] = -1;
+                lastCompletion[i] = -1;
+                waitingJobs.add(new ArrayDeque<Integer>());
+                serverJobs.add(new ArrayList<Integer>());
+
+            }
+
+        }
+
+    }
+
+    // Jobs are submitted at random intervals so that the cores in use are on average halfway between the min and max load
+    double meanInterval() {
+
+        double totalRate = 0, meanRuntime = 0;
+        for(SystemConfig.JobType type: config.jobTypes) {
+            totalRate += type.populationRate;
+            meanRuntime += type.populationRate * ((double) type.minRunTime + type.maxRunTime) / 2;
+        }
+        meanRuntime /= Math.max(1, totalRate);
+
+        long totalCores = 0;
+        for(SystemConfig.ServerType type: serverTypes)
+            totalCores += (long) type.limit * type.coreCount;
+
+        double meanCores = (1 + config.largestServerType().coreCount) / 2.0;
+        double load = (config.minLoad + config.maxLoad) / 200.0;
+
+        return meanCores * meanRuntime / Math.max(1e-9, load * totalCores);
+
+    }
+
+    int nextInterval() {
+        return (int) Math.min(Integer.MAX_VALUE / 2, -Math.log(1 - random.nextDouble()) * meanInterval);
+    }
+
+    // Create the next job submitted at the current time
+    void submitJob() {
+
+        if(jobCount == jobSubmit.length) {
+            int capacity = jobCount * 2;
+            jobSubmit = Arrays.copyOf(jobSubmit, capacity);
+            jobRuntime = Arrays.copyOf(jobRuntime, capacity);
+            jobCores = Arrays.copyOf(jobCores, capacity);
+            jobMemory = Arrays.copyOf(jobMemory, capacity);
+            jobDisk = Arrays.copyOf(jobDisk, capacity);
+            jobServer = Arrays.copyOf(jobServer, capacity);
+            jobStart = Arrays.copyOf(jobStart, capacity);
+            jobEnd = Arrays.copyOf(jobEnd, capacity);
+        }
+
+        SystemConfig.JobType jobType = config.jobType(random.nextInt(Math.max(1, config.totalPopulationRate())));
+
+        // Memory and disk per core are bounded by the server type with the least per core, so a job fits every
+        // server type with enough cores
+        int jobCoreCount = 1 + random.nextInt(config.largestServerType().coreCount);
+        long memoryPerCore = Long.MAX_VALUE, diskPerCore = Long.MAX_VALUE;
+        for(SystemConfig.ServerType type: serverTypes) {
+            memoryPerCore = Math.min(memoryPerCore, type.memory / type.coreCount);
+            diskPerCore = Math.min(diskPerCore, type.disk / type.coreCount);
+        }
+
+        int job = jobCount++;
+        jobSubmit[job] = now;
+        jobRuntime[job] = jobType.minRunTime +
+                (int) (random.nextDouble() * ((long) jobType.maxRunTime - jobType.minRunTime + 1));
+        jobCores[job] = jobCoreCount;
+        jobMemory[job] = 1 + random.nextInt((int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryPerCore * jobCoreCount)));
+        jobDisk[job] = 1 + random.nextInt((int) Math.max(1, Math.min(Integer.MAX_VALUE, diskPerCore * jobCoreCount)));
+        jobServer[job] = -1;
+        jobStart[job] = -1;
+        jobEnd[job] = -1;
+
+    }
+
+    // Transport
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+
+        if(outputStart == outputEnd) {
+
+            if(quit)
+                return -1;
+
+            throw new IOException("The client is waiting for a reply but no command is waiting for one.");
+
+        }
+
+        int count = Math.min(length, outputEnd - outputStart);
+        System.arraycopy(output, outputStart, buffer, offset, count);
+        outputStart += count;
+
+        if(outputStart == outputEnd)
+            outputStart = outputEnd = 0;
+
+        return count;
+
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+
+        if(inputLength + length > input.length)
+            input = Arrays.copyOf(input, Math.max(input.length * 2, inputLength + length));
+
+        System.arraycopy(buffer, offset, input, inputLength, length);
+        inputLength += length;
+
+        // Handle every whole line, keep the rest for the next write
+        int lineStart = 0;
+        for(int i = 0; i < inputLength; i++) {
+
+            if(input[i] != '\n')
+                continue;
+
+            int lineEnd = i > lineStart && input[i - 1] == '\r' ? i - 1 : i;
+            handle(new String(input, lineStart, lineEnd - lineStart, StandardCharsets.US_ASCII));
+            lineStart = i + 1;
+
+        }
+
+        System.arraycopy(input, lineStart, input, 0, inputLength - lineStart);
+        inputLength -= lineStart;
+
+    }
+
+    @Override
+    public void flush() { }
+
+    @Override
+    public void close() {
+        quit = true;
+    }
+
+    /**
+     * Listen on a loopback port and serve a single client until it sends QUIT or disconnects.
+     */
+    public void serve(int port) throws IOException {
+
+        try(ServerSocket serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+            Socket socket = serverSocket.accept()) {
+
+            socket.setTcpNoDelay(true);
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            byte[] buffer = new byte[8192];
+
+            while(!quit) {
+
+                int read = in.read(buffer);
+                if(read == -1)
+                    break;
+
+                write(buffer, 0, read);
+
+                if(outputEnd > outputStart) {
+                    out.write(output, outputStart, outputEnd - outputStart);
+                    out.flush();
+                    outputStart = outputEnd = 0;
+                }
+
+            }
+
+        }
+
+    }
+
+    // Protocol
+
+    void handle(String line) {
+
+        if(sendingData) {
+            acknowledgeData(line);
+            return;
+        }
+
+        String[] words = line.split(" ");
+
+        switch(words[0]) {
+
+            case "HELO":
+            case "AUTH":
+                reply("OK");
+                break;
+
+            case "REDY":
+                ready();
+                break;
+
+            case "RESC":
+                resourceInformation(words);
+                break;
+
+            case "LSTJ":
+                listJobs(words);
+                break;
+
+            case "SCHD":
+                schedule(words);
+                break;
+
+            case "QUIT":
+                finish();
+                reply("QUIT");
+                quit = true;
+                break;
+
+            default:
+                reply("ERR: invalid command (" + line + ")");
+
+        }
+
+    }
+
+    void ready() {
+
+        while(true) {
+
+            if(!completions.isEmpty()) {
+
+                int job = completions.poll();
+                int server = jobServer[job];
+                append("JCPL ").append(jobEnd[job]).append(' ').append(job).append(' ')
+                        .append(serverTypes.get(serverType[server]).name).append(' ').append(serverID[server]).append('\n');
+                return;
+
+            }
+
+            boolean moreJobs = jobCount < jobLimit && nextSubmit <= endTime;
+            long nextEvent = events.isEmpty() ? Long.MAX_VALUE : events.peek() >>> 32;
+
+            // Completions before the next job are sent first, once every job is submitted only JCPL keeps the
+            // simulation going
+            if(nextEvent != Long.MAX_VALUE && (moreJobs ? nextEvent <= nextSubmit : sendCompletions)) {
+                runEvents((int) nextEvent);
+                continue;
+            }
+
+            if(!moreJobs) {
+                reply("NONE");
+                return;
+            }
+
+            runEvents(nextSubmit);
+            submitJob();
+            nextSubmit = now + nextInterval();
+
+            int job = jobCount - 1;
+            append("JOBN ").append(jobSubmit[job]).append(' ').append(job).append(' ').append(jobRuntime[job]).append(' ')
+                    .append(jobCores[job]).append(' ').append(jobMemory[job]).append(' ').append(jobDisk[job]).append('\n');
+            return;
+
+        }
+
+    }
+
+    // RESC All, RESC Type server_type, RESC Avail cores memory disk
+    void resourceInformation(String[] words) {
+
+        dataCount = 0;
+
+        if(words.length == 2 && words[1].equals("All")) {
+
+            for(int i = 0; i < serverCount; i++)
+                addDataItem(i);
+
+        } else if(words.length == 3 && words[1].equals("Type")) {
+
+            for(int i = 0; i < serverCount; i++) {
+                if(serverTypes.get(serverType[i]).name.equals(words[2]))
+                    addDataItem(i);
+            }
+
+        } else if(words.length == 5 && words[1].equals("Avail")) {
+
+            int jobCoreCount = parseInt(words[2]), jobMemorySize = parseInt(words[3]), jobDiskSize = parseInt(words[4]);
+            for(int i = 0; i < serverCount; i++) {
+                if(cores[i] >= jobCoreCount && memory[i] >= jobMemorySize && disk[i] >= jobDiskSize)
+                    addDataItem(i);
+            }
+
+        } else {
+            reply("ERR: invalid RESC command");
+            return;
+        }
+
+        sendData(false);
+
+    }
+
+    // LSTJ server_type server_ID
+    void listJobs(String[] words) {
+
+        int server = words.length == 3 ? indexOf(words[1], words[2]) : -1;
+        if(server == -1) {
+            reply("ERR: invalid server");
+            return;
+        }
+
+        dataCount = 0;
+        for(int job: serverJobs.get(server))
+            addDataItem(job);
+
+        sendData(true);
+
+    }
+
+    // SCHD job_ID server_type server_ID
+    void schedule(String[] words) {
+
+        int job = words.length == 4 ? parseInt(words[1]) : -1;
+        int server = words.length == 4 ? indexOf(words[2], words[3]) : -1;
+
+        if(job < 0 || job >= jobCount || jobServer[job] != -1) {
+            reply("ERR: invalid job (" + (words.length > 1 ? words[1] : "") + ")");
+            return;
+        }
+
+        SystemConfig.ServerType type = server == -1 ? null : serverTypes.get(serverType[server]);
+        if(type == null || type.coreCount < jobCores[job] || type.memory < jobMemory[job] || type.disk < jobDisk[job]) {
+            reply("ERR: invalid server");
+            return;
+        }
+
+        jobServer[job] = server;
+        serverJobs.get(server).add(job);
+        waitingJobs.get(server).add(job);
+
+        if(state[server] == INACTIVE) {
+            state[server] = BOOTING;
+            bootStart[server] = now;
+            events.add(event(now + type.bootupTime, BOOT_COMPLETION, server));
+        }
+
+        startJobs(server);
+        reply("OK");
+
+    }
+
+    void addDataItem(int item) {
+
+        if(dataCount == dataItems.length)
+            dataItems = Arrays.copyOf(dataItems, dataItems.length * 2);
+
+        dataItems[dataCount++] = item;
+
+    }
+
+    void sendData(boolean jobs) {
+
+        sendingData = true;
+        dataIsJobs = jobs;
+        dataSent = 0;
+        dataHeaderAcknowledged = false;
+
+        if(batchedData)
+            reply("DATA " + dataCount + " " + 124);
+        else
+            reply("DATA");
+
+    }
+
+    // Each OK of the client is answered with the next record, then "." once every record has been sent
+    void acknowledgeData(String line) {
+
+        if(!line.equals("OK")) {
+            sendingData = false;
+            reply("ERR: expected OK");
+            return;
+        }
+
+        if(batchedData && !dataHeaderAcknowledged) {
+            dataHeaderAcknowledged = true;
+            while(dataSent < dataCount)
+                sendRecord(dataItems[dataSent++]);
+            return;
+        }
+
+        if(dataSent < dataCount) {
+            sendRecord(dataItems[dataSent++]);
+            return;
+        }
+
+        sendingData = false;
+        reply(".");
+
+    }
+
+    void sendRecord(int item) {
+
+        if(dataIsJobs) {
+
+            // job_ID job_state start_time est_runtime cores memory disk
+            append(item).append(' ').append(jobStart[item] == -1 ? WAITING : RUNNING).append(' ')
+                    .append(jobStart[item]).append(' ').append(jobRuntime[item]).append(' ').append(jobCores[item])
+                    .append(' ').append(jobMemory[item]).append(' ').append(jobDisk[item]).append('\n');
+
+        } else {
+
+            // server_type server_ID server_state available_time cores memory disk
+            append(serverTypes.get(serverType[item]).name).append(' ').append(serverID[item]).append(' ')
+                    .append(state[item]).append(' ').append(availableTime(item)).append(' ').append(cores[item])
+                    .append(' ').append(memory[item]).append(' ').append(disk[item]).append('\n');
+
+        }
+
+    }
+
+    // Simulation
+
+    static long event(int time, long kind, int id) {
+        return ((long) time << 32) | (kind << 31) | id;
+    }
+
+    // Process every event up to and including the given time
+    void runEvents(int time) {
+
+        while(!events.isEmpty() && (events.peek() >>> 32) <= time) {
+
+            long event = events.poll();
+            now = (int) (event >>> 32);
+            int id = (int) (event & 0x7fffffff);
+
+            if(((event >>> 31) & 1) == BOOT_COMPLETION) {
+                state[id] = IDLE;
+                startJobs(id);
+            } else {
+                completeJob(id);
+            }
+
+        }
+
+        now = Math.max(now, time);
+
+    }
+
+    void completeJob(int job) {
+
+        int server = jobServer[job];
+        jobEnd[job] = now;
+        cores[server] += jobCores[job];
+        memory[server] += jobMemory[job];
+        disk[server] += jobDisk[job];
+        lastCompletion[server] = now;
+        serverJobs.get(server).remove(Integer.valueOf(job));
+
+        if(sendCompletions)
+            completions.add(job);
+
+        if(serverJobs.get(server).isEmpty())
+            state[server] = IDLE;
+
+        startJobs(server);
+
+    }
+
+    // Start the waiting jobs of a server in order while it has the resources for the next one
+    void startJobs(int server) {
+
+        if(state[server] != IDLE && state[server] != ACTIVE)
+            return;
+
+        ArrayDeque<Integer> waiting = waitingJobs.get(server);
+        while(!waiting.isEmpty()) {
+
+            int job = waiting.peek();
+            if(cores[server] < jobCores[job] || memory[server] < jobMemory[job] || disk[server] < jobDisk[job])
+                break;
+
+            waiting.poll();
+            cores[server] -= jobCores[job];
+            memory[server] -= jobMemory[job];
+            disk[server] -= jobDisk[job];
+            jobStart[job] = now;
+            state[server] = ACTIVE;
+            events.add(event(now + jobRuntime[job], JOB_COMPLETION, job));
+
+        }
+
+    }
+
+    int availableTime(int server) {
+
+        if(state[server] == INACTIVE)
+            return now + serverTypes.get(serverType[server]).bootupTime;
+        if(state[server] == IDLE)
+            return now;
+
+        return -1;
+
+    }
+
+    int indexOf(String typeName, String id) {
+
+        int serverId = parseInt(id);
+        int first = 0;
+
+        for(SystemConfig.ServerType type: serverTypes) {
+
+            if(type.name.equals(typeName))
+                return serverId >= 0 && serverId < type.limit ? first + serverId : -1;
+
+            first += type.limit;
+
+        }
+
+        return -1;
+
+    }
+
+    static int parseInt(String text) {
+
+        try {
+            return Integer.parseInt(text);
+        } catch(NumberFormatException e) {
+            return -1;
+        }
+
+    }
+
+    // Run the simulation until every scheduled job has completed
+    void finish() {
+
+        while(!events.isEmpty())
+            runEvents((int) (events.peek() >>> 32));
+
+        completions.clear();
+
+    }
+
+    /**
+     * Results of a simulation, see results().
+     */
+    static class Results {
+
+        int submitted, completed, serversUsed, servers;
+        int endTime; // when the last job completed
+        double avgWaiting, avgExecution, avgTurnaround;
+        double cost;
+        double utilisation;
+
+        // Hash of the server each job was scheduled to, two runs that made the same decisions have the same hash
+        long schedule;
+
+    }
+
+    /**
+     * @return the results of the simulation in the same terms as ds-server: waiting, execution and turnaround times
+     * of the completed jobs and the rental cost of the servers that were used.
+     */
+    public Results results() {
+
+        Results results = new Results();
+        long waiting = 0, execution = 0, turnaround = 0;
+
+        for(int job = 0; job < jobCount; job++) {
+
+            results.schedule = (results.schedule ^ (jobServer[job] + 1)) * 0x9E3779B97F4A7C15L;
+
+            if(jobEnd[job] == -1)
+                continue;
+
+            results.completed++;
+            waiting += jobStart[job] - jobSubmit[job];
+            execution += jobEnd[job] - jobStart[job];
+            turnaround += jobEnd[job] - jobSubmit[job];
+            results.endTime = Math.max(results.endTime, jobEnd[job]);
+
+        }
+
+        for(int i = 0; i < serverCount; i++) {
+
+            if(bootStart[i] == -1)
+                continue;
+
+            results.serversUsed++;
+            SystemConfig.ServerType type = serverTypes.get(serverType[i]);
+            int used = Math.max(lastCompletion[i], bootStart[i] + type.bootupTime) - bootStart[i];
+            results.cost += type.hourlyRate * used / 3600;
+
+        }
+
+        long jobs = Math.max(1, results.completed);
+        results.submitted = jobCount;
+        results.servers = serverCount;
+        results.avgWaiting = (double) waiting / jobs;
+        results.avgExecution = (double) execution / jobs;
+        results.avgTurnaround = (double) turnaround / jobs;
+        results.utilisation = utilisation();
+
+        return results;
+
+    }
+
+    /**
+     * @return the results of the simulation as the summary lines of ds-server.
+     */
+    public String summary() {
+
+        Results results = results();
+        return String.format("# %d jobs submitted, %d completed on %d of %d servers%n" +
+                        "# actual simulation end time: %d%n" +
+                        "# avg waiting time: %.2f, avg exec time: %.2f, avg turnaround time: %.2f%n" +
+                        "# total cost: $%.2f",
+                results.submitted, results.completed, results.serversUsed, results.servers, results.endTime,
+                results.avgWaiting, results.avgExecution, results.avgTurnaround, results.cost);
+
+    }
+
+    /**
+     * @return the core seconds used by completed jobs as a fraction of the core seconds of the servers that were
+     * rented, from when each booted until its last job completed.
+     */
+    public double utilisation() {
+
+        double used = 0, rented = 0;
+
+        for(int job = 0; job < jobCount; job++) {
+            if(jobEnd[job] != -1)
+                used += (double) jobCores[job] * (jobEnd[job] - jobStart[job]);
+        }
+
+        for(int i = 0; i < serverCount; i++) {
+
+            if(bootStart[i] == -1)
+                continue;
+
+            SystemConfig.ServerType type = serverTypes.get(serverType[i]);
+            rented += (double) type.coreCount * (Math.max(lastCompletion[i], bootStart[i] + type.bootupTime) - bootStart[i]);
+
+        }
+
+        return rented == 0 ? 0 : used / rented;
+
+    }
+
+    void reply(String message) {
+        append(message).append('\n');
+    }
+
+    SimulatedServer append(String text) {
+
+        ensureOutputCapacity(text.length());
+        for(int i = 0; i < text.length(); i++)
+            output[outputEnd++] = (byte) text.charAt(i);
+
+        return this;
+
+    }
+
+    SimulatedServer append(char c) {
+
+        ensureOutputCapacity(1);
+        output[outputEnd++] = (byte) c;
+
+        return this;
+
+    }
+
+    SimulatedServer append(int value) {
+
+        if(value < 0 && value != Integer.MIN_VALUE) {
+            append('-');
+            value = -value;
+        } else if(value < 0) {
+            return append(Integer.toString(value));
+        }
+
+        int digits = 1;
+        for(int temp = value / 10; temp > 0; temp /= 10)
+            digits++;
+
+        ensureOutputCapacity(digits);
+        for(int i = outputEnd + digits - 1; i >= outputEnd; i--) {
+            output[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        outputEnd += digits;
+        return this;
+
+    }
+
+    void ensureOutputCapacity(int length) {
+
+        if(outputEnd + length <= output.length)
+            return;
+
+        // Move the unread replies to the front before growing the buffer
+        System.arraycopy(output, outputStart, output, 0, outputEnd - outputStart);
+        outputEnd -= outputStart;
+        outputStart = 0;
+
+        if(outputEnd + length > output.length)
+            output = Arrays.copyOf(output, Math.max(output.length * 2, outputEnd + length));
+
+    }
+
+}
@@ -0,0 +1,242 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Trace Replay
+ * Replays a workload recorded with the client's "-e trace_file" (see WorkloadTrace) against scheduling policies
+ * without a server or a socket, so a modified algorithm can be run on exactly the same job stream as many times as
+ * needed. Each job is given to the policy where the recorded client scheduled it, and the server it chooses is
+ * placed in the client's local copy of the servers the same way a live session places it (Client.place()).
+ *
+ * By default every RESC All of the trace replaces the local copy, and the servers of every RESC Type are merged into
+ * it, the policy then sees the servers as the recorded session saw them and its decisions can be compared one for
+ * one with the recorded ones. With "-m" only the first RESC All is used and the local copy is kept up to date from the policy's own placements and the recorded JCPL,
+ * RESF and RESR alone, as a client with an infinite refresh interval would.
+ *
+ * For each policy the following are reported:
+ *
+ *      decisions   - number of jobs placed
+ *      same        - jobs placed on the same server as in the recording
+ *      none        - jobs the policy found no server for, the recorded server is used for them
+ *      ms          - time to replay the whole trace, the best of the repeats
+ *      decisions/s - jobs placed per second of replay, including reading the trace and applying every event
+ *
+ * Jobs of a window recorded with "-w" are replayed one at a time.
+ *
+ * Usage:
+ *      java TraceReplay -i trace_file [-a algo_name,...] [-f fitness] [-m] [-n repeats]
+ */
+public class TraceReplay {
+
+    // Jobs received but not yet scheduled, indexed by job ID
+    static final int PENDING = 1 << 12;
+
+    public static void main(String args[]) throws Exception {
+
+        String file = null;
+        String[] algorithms = {"ff", "bf", "wf"};
+        boolean modelOnly = false;
+        int repeats = 3;
+
+        for(int i = 0; i < args.length; i++) {
+
+            if(args[i].equals("-i"))
+                file = args[++i];
+            else if(args[i].equals("-a"))
+                algorithms = args[++i].split(",");
+            else if(args[i].equals("-f"))
+                Client.fitnessName = args[++i];
+            else if(args[i].equals("-m"))
+                modelOnly = true;
+            else if(args[i].equals("-n"))
+                repeats = Math.max(1, Integer.parseInt(args[++i]));
+
+        }
+
+        if(file == null) {
+            System.out.println("Usage:");
+            System.out.println("    java TraceReplay -i trace_file [-a algo_name,...] [-f fitness] [-m] [-n repeats]");
+            return;
+        }
+
+        System.out.printf("%5s %10s %8s %8s %10s %12s%n", "algo", "decisions", "same", "none", "ms", "decisions/s");
+
+        for(String algorithmName: algorithms) {
+
+            // The first replays warm up the JIT
+            Result best = null;
+            for(int r = 0; r < repeats; r++) {
+
+                Result result = replay(file, algorithmName, modelOnly);
+                if(best == null || result.time < best.time)
+                    best = result;
+
+            }
+
+            System.out.printf("%5s %10d %7.2f%% %8d %10.2f %12.0f%n", algorithmName, best.decisions,
+                    100.0 * best.same / Math.max(1, best.decisions), best.none, best.time / 1e6,
+                    best.decisions / Math.max(1e-9, best.time / 1e9));
+
+        }
+
+    }
+
+    static class Result {
+
+        int decisions = 0;
+        int same = 0;
+        int none = 0;
+        long time = 0;
+
+    }
+
+    static Result replay(String file, String algorithmName, boolean modelOnly) throws IOException {
+
+        Client.algorithm = AllocationBenchmark.policyName(algorithmName);
+        Client.recordFile = null;
+
+        Result result = new Result();
+        Client client = new Client((MessageCodec) null);
+        ServerTable servers = client.allServerInfo;
+        ServerEvent event = client.event;
+
+        Job[] pending = new Job[PENDING];
+        for(int k = 0; k < pending.length; k++)
+            pending[k] = new Job();
+
+        boolean[] types = new boolean[0]; // types of the servers of an UPDATED record
+        boolean initialised = false;
+        int now = 0;
+
+        long start = System.nanoTime();
+
+        try(WorkloadTrace.Reader trace = WorkloadTrace.open(file)) {
+
+            while(trace.next()) {
+
+                int[] values = trace.values;
+
+                switch(trace.kind) {
+
+                    case WorkloadTrace.TYPE:
+                        if(servers.typeId(trace.name) != values[0])
+                            throw new IOException("Server type " + trace.name + " is out of order.");
+                        break;
+
+                    case WorkloadTrace.SERVERS:
+
+                        if(initialised && modelOnly)
+                            break;
+
+                        servers.clear();
+                        for(int k = 0, v = 1; k < values[0]; k++, v += 7)
+                            servers.add(values[v], values[v + 1], values[v + 2], values[v + 3], values[v + 4],
+                                    values[v + 5], values[v + 6]);
+
+                        if(initialised)
+                            client.resourceModel.refreshed(servers, now);
+                        else
+                            client.initialiseServers(false, now);
+
+                        if(types.length < servers.typeCount())
+                            types = new boolean[servers.typeCount()];
+
+                        initialised = true;
+                        break;
+
+                    case WorkloadTrace.UPDATED:
+
+                        if(!initialised || modelOnly)
+                            break;
+
+                        Arrays.fill(types, false);
+                        for(int k = 0, v = 1; k < values[0]; k++, v += 7) {
+
+                            int updated = servers.indexOf(values[v], values[v + 1]);
+                            if(updated != -1)
+                                servers.set(updated, values[v + 2], values[v + 3], values[v + 4], values[v + 5], values[v + 6]);
+                            if(values[v] < types.length)
+                                types[values[v]] = true;
+
+                        }
+
+                        client.resourceModel.refreshed(servers, now, types);
+                        break;
+
+                    case WorkloadTrace.JOB:
+
+                        Job job = pending[values[1] & (PENDING - 1)];
+                        job.submitTime = values[0];
+                        job.id = values[1];
+                        job.estRuntime = values[2];
+                        job.cores = values[3];
+                        job.memory = values[4];
+                        job.disk = values[5];
+
+                        now = job.submitTime;
+                        client.policy.onJobSubmit(job);
+                        break;
+
+                    case WorkloadTrace.COMPLETED:
+                        event.type = ServerEvent.COMPLETED;
+                        event.time = values[0];
+                        event.jobID = values[1];
+                        event.server = indexOf(servers, values[2], values[3]);
+                        client.apply(event);
+                        break;
+
+                    case WorkloadTrace.FAILED:
+                    case WorkloadTrace.RECOVERED:
+                        event.type = trace.kind == WorkloadTrace.FAILED ? ServerEvent.FAILED : ServerEvent.RECOVERED;
+                        event.time = values[0];
+                        event.jobID = -1;
+                        event.server = indexOf(servers, values[1], values[2]);
+                        client.apply(event);
+                        break;
+
+                    case WorkloadTrace.SCHEDULED:
+
+                        Job scheduled = pending[values[0] & (PENDING - 1)];
+                        if(scheduled.id != values[0] || !initialised)
+                            break;
+
+                        client.jobQueues.advance(scheduled.submitTime);
+
+                        // The policy may sort the table by type, so the recorded server is found afterwards
+                        int server = client.findServer(scheduled);
+                        int recorded = indexOf(servers, values[1], values[2]);
+
+                        if(server == -1) {
+                            result.none++;
+                            server = recorded;
+                        } else if(server == recorded) {
+                            result.same++;
+                        }
+
+                        if(server != -1) {
+                            client.place(server, scheduled);
+                            result.decisions++;
+                        }
+
+                        break;
+
+                    default:
+                        break;
+
+                }
+
+            }
+
+        }
+
+        result.time = System.nanoTime() - start;
+        return result;
+
+    }
+
+    // Index of a recorded server in the table, -1 if it was not in the table when recorded or is not in it now
+    static int indexOf(ServerTable servers, int serverType, int serverID) {
+        return serverType < 0 ? -1 : servers.indexOf(serverType, serverID);
+    }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * All To Largest
+ * Schedules every job to the server with the most cores, the first one listed if several have the same number of
+ * cores. The largest server is found once from the first RESC All.
+ */
+public class AllToLargestPolicy implements SchedulingPolicy {
+
+    private int indexOfLargestServer = 0;
+
+    @Override
+    public String name() {
+        return "atl";
+    }
+
+    @Override
+    public void onInit(Client client) {
+
+        ServerTable servers = client.allServerInfo;
+
+        indexOfLargestServer = 0;
+        for(int i = 0; i < servers.size; i++) {
+            if( servers.cores[indexOfLargestServer] < servers.cores[i] )
+                indexOfLargestServer = i;
+        }
+
+    }
+
+    // The largest server does not change
+    @Override
+    public int predict(Job job) {
+        return select(job);
+    }
+
+    @Override
+    public int select(Job job) {
+        return indexOfLargestServer;
+    }
+
+}
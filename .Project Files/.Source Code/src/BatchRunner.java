@@ -0,0 +1,157 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Batch Runner
+ * Runs a client session with each of several server instances at once on a fixed size thread pool, so a sweep of
+ * algorithms and configs uses every core instead of running one session after another.
+ *
+ * Sessions are listed with "-b" as port[:algo_name[:config_file]] separated by commas, e.g.
+ *
+ *      java Client -b 8096:ff,8097:bf,8098:wf:configs/config_simple3.xml -j 3
+ *
+ * A session without an algorithm or config uses the ones given by "-a" and "-c". Each config file is read once and the
+ * same SystemConfig is shared by every session that uses it, sessions only read it. Every other option is read by all
+ * sessions from the program arguments.
+ *
+ * Commands are not logged and workloads are not recorded in batch mode since the sessions would be interleaved, the
+ * number of jobs scheduled and the time taken by each session are displayed once every session has finished.
+ */
+public class BatchRunner {
+
+    static class Session {
+
+        int port;
+        String algorithm;
+        SystemConfig config;
+
+        // Results
+        int jobsScheduled = 0;
+        long time = 0;
+        boolean connected = false;
+
+    }
+
+    /**
+     * Run the sessions listed in sessionList against the server instances on the given address.
+     * @param threads - the number of sessions run at once.
+     */
+    public static void run(String address, String sessionList, int threads) {
+
+        ArrayList<Session> sessions;
+        try {
+            sessions = parseSessions(sessionList);
+        } catch(IOException | NumberFormatException e) {
+            System.out.println("Please enter valid sessions. " + e.getMessage());
+            Client.clientUsage();
+            return;
+        }
+
+        Client.verbose = false;
+        Client.recordFile = null;
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, sessions.size())));
+        ArrayList<Future<?>> results = new ArrayList<>();
+
+        long start = System.nanoTime();
+
+        for(Session session: sessions) {
+
+            results.add(pool.submit(() -> {
+
+                long sessionStart = System.nanoTime();
+                Client client = new Client(address, session.port, Client.createPolicy(session.algorithm),
+                        session.config);
+
+                session.time = System.nanoTime() - sessionStart;
+                session.jobsScheduled = client.jobsScheduled;
+                session.connected = client.isConnected();
+
+            }));
+
+        }
+
+        pool.shutdown();
+
+        for(int i = 0; i < sessions.size(); i++) {
+
+            try {
+                results.get(i).get();
+            } catch(InterruptedException | ExecutionException e) {
+                System.out.println("# session " + sessions.get(i).port + " failed: " + e.getCause());
+            }
+
+        }
+
+        long time = System.nanoTime() - start;
+
+        // Results of each session in the order they were listed
+        int totalJobs = 0, failed = 0;
+        long sessionTime = 0;
+
+        for(Session session: sessions) {
+
+            System.out.printf("# session %d %s: %d jobs in %.3f s%s%n", session.port, session.algorithm,
+                    session.jobsScheduled, session.time / 1e9, session.connected ? "" : " (connection lost)");
+
+            totalJobs += session.jobsScheduled;
+            sessionTime += session.time;
+            if(!session.connected)
+                failed++;
+
+        }
+
+        System.out.printf("# %d sessions (%d failed), %d jobs in %.3f s, %.3f s of sessions, %.0f jobs/s%n",
+                sessions.size(), failed, totalJobs, time / 1e9, sessionTime / 1e9, totalJobs / Math.max(1e-9, time / 1e9));
+
+    }
+
+    /**
+     * Read a list of sessions, port[:algo_name[:config_file]] separated by commas.
+     */
+    static ArrayList<Session> parseSessions(String sessionList) throws IOException {
+
+        ArrayList<Session> sessions = new ArrayList<>();
+        HashMap<String, SystemConfig> configs = new HashMap<>();
+
+        for(String spec: sessionList.split(",")) {
+
+            // The config file may contain ':' so it is everything after the algorithm
+            String[] parts = spec.trim().split(":", 3);
+
+            Session session = new Session();
+            session.port = Integer.parseInt(parts[0]);
+            session.algorithm = Client.algorithm;
+            session.config = Client.systemConfig;
+
+            if(parts.length > 1 && !parts[1].isEmpty()) {
+                session.algorithm = parts[1];
+                if(!Client.isPolicy(parts[1]))
+                    throw new IOException("Unknown algorithm " + parts[1] + ".");
+            }
+
+            if(parts.length > 2 && !parts[2].isEmpty()) {
+
+                session.config = configs.get(parts[2]);
+                if(session.config == null) {
+                    session.config = SystemConfig.load(new File(parts[2]));
+                    configs.put(parts[2], session.config);
+                }
+
+            }
+
+            sessions.add(session);
+
+        }
+
+        return sessions;
+
+    }
+
+}
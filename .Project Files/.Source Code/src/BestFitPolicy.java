@@ -0,0 +1,47 @@
+/**
+ * Best-Fit Algorithm
+ * Schedules a job to the best-fit server that has sufficient resources to run the job, if none are found, the
+ * best-fit active server based on initial resource capacity.
+ *
+ * The best-fit is calculated using a fitness value, this fitness value is the difference between the server's
+ * number of cores and the job's required number of cores. A server is considered the best-fit when this difference
+ * is closer to 0 (Can only be positive). If there is a server with the same fitness value but is available in a
+ * shorter amount of time that server is the best-fit.
+ *
+ * With a fitness given by "-f" all three resources are compared instead, see Client.findFittest().
+ */
+public class BestFitPolicy implements SchedulingPolicy {
+
+    private Client client;
+    private final ServerIndex serverIndex = new ServerIndex();
+
+    @Override
+    public String name() {
+        return "bf";
+    }
+
+    @Override
+    public void onInit(Client client) {
+        this.client = client;
+    }
+
+    // Syncing the index leaves select() the same servers to choose from
+    @Override
+    public int predict(Job job) {
+        return select(job);
+    }
+
+    @Override
+    public int select(Job job) {
+
+        if(client.fitness != null)
+            return client.findFittest(job, true);
+
+        serverIndex.sync(client.allServerInfo, client.initialAllServerInfo);
+
+        // The server's available time is not checked for the initial resource capacity since all active servers are busy
+        return serverIndex.bestFit(job);
+
+    }
+
+}
@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Channel Transport
+ * A transport over a blocking java.nio SocketChannel. Commands are collected in a direct buffer and written to the
+ * channel in one call when the exchange is flushed, and replies are read into another direct buffer. The JDK copies a
+ * heap buffer into a temporary native buffer on each socket call, the direct buffers are passed to the socket as they
+ * are. Replies are still copied into the caller's byte array by read(). TCP_NODELAY is set so a flushed command is
+ * sent immediately instead of waiting for the previous segment to be acknowledged.
+ */
+public class ChannelTransport implements Transport {
+
+    private final SocketChannel channel;
+    private final ByteBuffer inBuffer  = ByteBuffer.allocateDirect(64 * 1024);
+    private final ByteBuffer outBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    public ChannelTransport(SocketChannel channel) throws IOException {
+
+        this.channel = channel;
+        channel.configureBlocking(true);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        // Nothing has been read yet
+        inBuffer.flip();
+
+    }
+
+    /**
+     * Connect to the server using a SocketChannel.
+     */
+    public static ChannelTransport connect(String address, int port) throws IOException {
+        return new ChannelTransport(SocketChannel.open(new InetSocketAddress(address, port)));
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+
+        if(!inBuffer.hasRemaining()) {
+
+            inBuffer.clear();
+            int read = channel.read(inBuffer);
+            inBuffer.flip();
+
+            if(read == -1)
+                return -1;
+
+        }
+
+        int count = Math.min(length, inBuffer.remaining());
+        inBuffer.get(buffer, offset, count);
+
+        return count;
+
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+
+        while(length > 0) {
+
+            if(!outBuffer.hasRemaining())
+                flush();
+
+            int count = Math.min(length, outBuffer.remaining());
+            outBuffer.put(buffer, offset, count);
+            offset += count;
+            length -= count;
+
+        }
+
+    }
+
+    @Override
+    public void flush() throws IOException {
+
+        outBuffer.flip();
+        while(outBuffer.hasRemaining())
+            channel.write(outBuffer);
+        outBuffer.clear();
+
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
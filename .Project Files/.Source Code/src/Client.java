@@ -1,25 +1,142 @@
 import java.io.*;
 import java.net.*;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.ServiceLoader;
 
 public class Client {
 
     // User Arguments
     static boolean manualInput = false; // Allow manual input of commands
     static boolean help        = false; // Display program usage
-    static boolean verbose     = false;
+    static boolean verbose     = false; // Log every command and reply, see TraceLog
+    static String traceFile    = null;  // File the log is written to instead of the terminal
+    static boolean pipelined   = false; // Send all OKs of a DATA response at once, the server must accept this
+    static boolean nio         = false; // Connect using a SocketChannel instead of a blocking Socket
+
+    // Log written to by every verbose client, see sharedTrace()
+    private static TraceLog sharedTrace = null;
+
+    // Names of the policies created by createPolicy() without ServiceLoader, and the ones found by it
+    static final String[] REFERENCE_POLICIES = {"atl", "ff", "bf", "wf", "cost", "ect"};
+    private static Map<String, Class<? extends SchedulingPolicy>> loadedPolicies = null;
 
     // Automation variables
-    static int algorithm = 0; // 0 = AllToLargest, 1 = First-Fit, 2 = Best-Fit, 3 = Worst-Fit
+    static String algorithm = "atl"; // Name of the scheduling policy, see createPolicy()
+    static int refreshInterval = 1; // Number of jobs scheduled between each RESC All
+    static int maxRefreshInterval = 0; // Longest refresh interval when it is adapted ("-r auto"), 0 = not adapted
+    static boolean targetedQueries = true; // Refresh only the server types a job can run on, see QueryPlanner
+    static int validationInterval = 0; // Number of wait time queries between each LSTJ check, 0 = never
+    static SystemConfig systemConfig = null; // Server types known before the first RESC All, null if not given
+    static int lookahead = 1; // Number of jobs placed together when the server sends them ahead, see scheduleWindow()
+    static int lookaheadSpan = 0; // Longest time in seconds between the first and last job of a window, 0 = no limit
+    static String fitnessName = "cores"; // Fitness used by Best-Fit and Worst-Fit, see createFitness()
+    static String recordFile = null; // File the workload of the session is recorded to, see WorkloadTrace
+
+    // Batch mode, one session for each server instance listed with "-b"
+    static String batchSessions = null;
+    static int batchThreads = Runtime.getRuntime().availableProcessors();
+
+    // Statistics displayed once QUIT has been sent, "text" or "json", null if they are not recorded
+    static String statistics = null;
 
     // Server data
-    ArrayList<ArrayList<String>> allServerInfo = new ArrayList<>();
-    ArrayList<ArrayList<String>> initialAllServerInfo = new ArrayList<>();
-    ArrayList<ArrayList<String>> sortOrder = new ArrayList<>();
+    ServerTable allServerInfo = new ServerTable();
+    ServerTable initialAllServerInfo = new ServerTable();
+    int[] serverTypeOrder = new int[0]; // server type ids from smallest to largest core count
+    int[] serverTypeRank = new int[0];  // position of each server type id in serverTypeOrder
+
+    // Hourly rate and largest initial resources of each server type id, used by the cost algorithm
+    double[] serverTypeRate = new double[0];
+    int[] serverTypeCores = new int[0];
+    int[] serverTypeMemory = new int[0];
+    int[] serverTypeDisk = new int[0];
+    int[] serverTypeSeen = new int[0]; // number of the last search an inactive server of the type was checked in
+    int typeSearches = 0;
+
+    // Multi-resource fitness of Best-Fit and Worst-Fit and the score of each server, null when only cores are compared
+    Fitness fitness = createFitness(fitnessName);
+    int[] fitnessScores = new int[0];
+
+    // Options of this session, the program arguments unless given to the constructor
+    SchedulingPolicy policy;
+    SystemConfig sessionConfig = systemConfig;
+    int lookaheadWindow = lookahead;
+    int lookaheadWindowSpan = lookaheadSpan;
+    int jobsScheduled = 0;
+
+    // Log of the commands and replies, null unless verbose
+    TraceLog trace = verbose ? sharedTrace() : null;
+
+    // Recording of the workload of this session, null unless a record file is given ("-e")
+    WorkloadTrace recorder = recordFile != null ? createRecorder() : null;
+
+    // Latencies and counters of this session, null unless statistics are enabled ("-s")
+    ClientMetrics metrics = statistics != null ? new ClientMetrics() : null;
+    long cycleStart = 0;
+
+    // Job data, reused for every job received
+    Job job = new Job();
+    ServerEvent event = new ServerEvent(job);
+
+    // Jobs of the lookahead window, the server chosen for each and the order they are placed in
+    Job[] window = new Job[0];
+    int[] windowServer = new int[0];
+    int[] windowOrder = new int[0];
+
+    // Keeps allServerInfo up to date between each RESC All
+    ResourceModel resourceModel = new ResourceModel(refreshInterval);
+
+    // Plans the RESC queries of each refresh
+    QueryPlanner queryPlanner = new QueryPlanner(targetedQueries);
+
+    // Adapts the refresh interval from the drift of resourceModel, null unless "-r auto"
+    DriftMonitor driftMonitor = maxRefreshInterval > 0 ? new DriftMonitor(maxRefreshInterval) : null;
+
+    // Jobs queued on each server, used for wait times instead of LSTJ
+    JobQueueCache jobQueues = new JobQueueCache();
+    int waitTimeQueries = 0;
 
     public static void main(String args[]) {
 
+        parseOptions(args);
+
+        System.out.println("# ds-sim client S1-07May, 2019 (COMP335@MQ)");
+        System.out.println("# Created by Mohamed Maatouk, Burak Ozturker & Cassandra Aung");
+
+        if(!verbose) {
+            System.out.println("#");
+            System.out.println("#   /$$$$$$  /$$ /$$                       /$$            /$$$$$$  /$$");
+            System.out.println("#   /$$__  $$| $$|__/                      | $$           /$$__  $$|__/");
+            System.out.println("#  | $$  \\__/| $$ /$$  /$$$$$$  /$$$$$$$  /$$$$$$        | $$  \\__/ /$$ /$$$$$$/$$$$");
+            System.out.println("#  | $$      | $$| $$ /$$__  $$| $$__  $$|_  $$_/        |  $$$$$$ | $$| $$_  $$_  $$");
+            System.out.println("#  | $$      | $$| $$| $$$$$$$$| $$  \\ $$  | $$           \\____  $$| $$| $$ \\ $$ \\ $$");
+            System.out.println("#  | $$    $$| $$| $$| $$_____/| $$  | $$  | $$ /$$       /$$  \\ $$| $$| $$ | $$ | $$|");
+            System.out.println("#  |  $$$$$$/| $$| $$|  $$$$$$$| $$  | $$  |  $$$$/      |  $$$$$$/| $$| $$ | $$ | $$");
+            System.out.println("#   \\______/ |__/|__/ \\_______/|__/  |__/   \\___/         \\______/ |__/|__/ |__/ |__/");
+            System.out.println();
+        }
+
+
+        if(help)
+            clientUsage();
+        else if(batchSessions != null)
+            BatchRunner.run("127.0.0.1", batchSessions, batchThreads);
+        else {
+            Client client = new Client("127.0.0.1", 8096);
+        }
+
+    }
+
+    /**
+     * Read the program arguments into the options, is used by main() and by anything else that runs a client with the
+     * same options, e.g. SimulatedServer. An invalid value or an unknown option is reported and sets help.
+     * @return false if the usage should be displayed instead of running the client.
+     */
+    public static boolean parseOptions(String args[]) {
+
         // Process program arguments
         for(int i = 0; i < args.length; i++) {
 
@@ -29,12 +146,8 @@ public class Client {
 
             else if(args[i].equals("-a")) { // Specify algorithm to be used
 
-                if(args[i+1].equals("ff"))
-                    algorithm = 1;
-                else if(args[i+1].equals("bf"))
-                    algorithm = 2;
-                else if(args[i+1].equals("wf"))
-                    algorithm = 3;
+                if(isPolicy(args[i+1]))
+                    algorithm = args[i+1];
                 else {
                     System.out.println("Please enter a valid algorithm.");
                     help = true;
@@ -48,50 +161,200 @@ public class Client {
                 verbose = true;
             }
 
-        }
+            else if(args[i].equals("-o")) { // Specify the file verbose logging is written to
+                verbose = true;
+                traceFile = args[i+1];
+                i++;
+            }
 
-        System.out.println("# ds-sim client S1-07May, 2019 (COMP335@MQ)");
-        System.out.println("# Created by Mohamed Maatouk, Burak Ozturker & Cassandra Aung");
+            else if(args[i].equals("-e")) { // Specify the file the workload is recorded to
+                recordFile = args[i+1];
+                i++;
+            }
 
-        if(!verbose) {
-            System.out.println("#");
-            System.out.println("#   /$$$$$$  /$$ /$$                       /$$            /$$$$$$  /$$");
-            System.out.println("#   /$$__  $$| $$|__/                      | $$           /$$__  $$|__/");
-            System.out.println("#  | $$  \\__/| $$ /$$  /$$$$$$  /$$$$$$$  /$$$$$$        | $$  \\__/ /$$ /$$$$$$/$$$$");
-            System.out.println("#  | $$      | $$| $$ /$$__  $$| $$__  $$|_  $$_/        |  $$$$$$ | $$| $$_  $$_  $$");
-            System.out.println("#  | $$      | $$| $$| $$$$$$$$| $$  \\ $$  | $$           \\____  $$| $$| $$ \\ $$ \\ $$");
-            System.out.println("#  | $$    $$| $$| $$| $$_____/| $$  | $$  | $$ /$$       /$$  \\ $$| $$| $$ | $$ | $$|");
-            System.out.println("#  |  $$$$$$/| $$| $$|  $$$$$$$| $$  | $$  |  $$$$/      |  $$$$$$/| $$| $$ | $$ | $$");
-            System.out.println("#   \\______/ |__/|__/ \\_______/|__/  |__/   \\___/         \\______/ |__/|__/ |__/ |__/");
-            System.out.println();
-        }
+            else if(args[i].equals("-p")) {
+                pipelined = true;
+            }
 
+            else if(args[i].equals("-t")) { // Specify the transport used to connect to the server
+
+                if(args[i+1].equals("socket"))
+                    nio = false;
+                else if(args[i+1].equals("nio"))
+                    nio = true;
+                else {
+                    System.out.println("Please enter a valid transport.");
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else if(args[i].equals("-r")) { // Specify the number of jobs scheduled between each RESC All
+
+                try {
+
+                    // auto[:max], the interval is adapted by a DriftMonitor
+                    String[] refresh = args[i+1].split(":", 2);
+                    if(refresh[0].equals("auto"))
+                        maxRefreshInterval = refresh.length > 1 ? Integer.parseInt(refresh[1]) : 64;
+                    else
+                        refreshInterval = Integer.parseInt(args[i+1]);
+
+                } catch(NumberFormatException e) {
+                    System.out.println("Please enter a valid refresh interval.");
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else if(args[i].equals("-q")) { // Specify the RESC queries used to refresh the servers
+
+                if(args[i+1].equals("all") || args[i+1].equals("type"))
+                    targetedQueries = args[i+1].equals("type");
+                else {
+                    System.out.println("Please enter a valid query.");
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else if(args[i].equals("-l")) { // Specify the number of wait time queries between each LSTJ check
+
+                try {
+                    validationInterval = Integer.parseInt(args[i+1]);
+                } catch(NumberFormatException e) {
+                    System.out.println("Please enter a valid LSTJ interval.");
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else if(args[i].equals("-f")) { // Specify the fitness used by Best-Fit and Worst-Fit
+
+                try {
+                    createFitness(args[i+1]);
+                    fitnessName = args[i+1];
+                } catch(IllegalArgumentException e) {
+                    System.out.println("Please enter a valid fitness.");
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else if(args[i].equals("-w")) { // Specify the number of jobs placed together, and optionally their span
+
+                try {
+                    String[] window = args[i+1].split(":", 2);
+                    lookahead = Math.max(1, Integer.parseInt(window[0]));
+                    lookaheadSpan = window.length > 1 ? Math.max(0, Integer.parseInt(window[1])) : 0;
+                } catch(NumberFormatException e) {
+                    System.out.println("Please enter a valid window.");
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else if(args[i].equals("-s")) { // Specify the format of the statistics displayed at QUIT
+
+                if(args[i+1].equals("text") || args[i+1].equals("json"))
+                    statistics = args[i+1];
+                else {
+                    System.out.println("Please enter a valid statistics format.");
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else if(args[i].equals("-b")) { // Specify the server instances to run a session with at once
+                batchSessions = args[i+1];
+                i++;
+            }
+
+            else if(args[i].equals("-j")) { // Specify the number of sessions run at once in batch mode
+
+                try {
+                    batchThreads = Integer.parseInt(args[i+1]);
+                } catch(NumberFormatException e) {
+                    System.out.println("Please enter a valid number of threads.");
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else if(args[i].equals("-c")) { // Specify the config file the server was started with
+
+                try {
+                    systemConfig = SystemConfig.load(new File(args[i+1]));
+                } catch(IOException e) {
+                    System.out.println("Please enter a valid config file. " + e.getMessage());
+                    help = true;
+                }
+
+                i++;
+
+            }
+
+            else { // Anything else is a mistake, it is not ignored
+                System.out.println("Unknown option " + args[i] + ".");
+                help = true;
+            }
 
-        if(help)
-            clientUsage();
-        else {
-            Client client = new Client("127.0.0.1", 8096);
         }
 
+        return !help;
+
     }
 
-    // initialize socket and input output streams
-    private Socket socket               = null;
-    private BufferedReader in           = null;
-    private DataOutputStream out        = null;
+    // initialize the connection to the server
+    private MessageCodec codec          = null;
+    private boolean connected           = false;
+
+    // Reading of DATA responses, see startData()
+    private static final int DATA_PER_RECORD = 0;
+    private static final int DATA_BATCHED    = 1;
+    private static final int DATA_PIPELINED  = 2;
+    private int dataMode = DATA_PER_RECORD;
+    private int dataRemaining = 0;
+    private byte[] acknowledgements = new byte[0];
 
     public Client(String address, int port) {
+        this(address, port, createPolicy(algorithm), systemConfig);
+    }
+
+    /**
+     * Run a session with the server using the given policy and config instead of the program arguments, the config
+     * is only read so it can be shared between sessions running at once.
+     */
+    public Client(String address, int port, SchedulingPolicy policy, SystemConfig sessionConfig) {
+
+        this.policy = policy;
+        this.sessionConfig = sessionConfig;
+
         // establish a connection
         try {
 
             // Connect to the server
-            socket = new Socket(address, port);
-
-            // Commands received from server
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            Transport transport = nio ? ChannelTransport.connect(address, port) : StreamTransport.connect(address, port);
 
-            // Commands sent to the server
-            out = new DataOutputStream(socket.getOutputStream());
+            // Commands sent to and received from the server
+            codec = new MessageCodec(transport);
+            connected = true;
 
         } catch(UnknownHostException u) { System.out.println(u);
         } catch(IOException i) { System.out.println(i); }
@@ -114,7 +377,7 @@ public class Client {
         }
 
         // Automated input of commands.
-        else {
+        else if(connected) {
 
             // Say Hello and sign in to Server.
             ClientSetup();
@@ -125,18 +388,35 @@ public class Client {
             // Close connection to server once all jobs have been scheduled.
             sendCommand("QUIT");
 
+            if(trace != null)
+                trace.flush();
+
+            if(metrics != null)
+                printStatistics();
+
         }
 
         try {
 
-            out.close();
-            socket.close();
-            in.close();
+            if(codec != null)
+                codec.close();
 
         } catch(IOException i) { System.out.println(i); }
 
     }
 
+    /**
+     * Create a client that talks to a server through an existing codec, nothing is sent until ClientSetup() or
+     * ClientScheduler() is called. Used to run the scheduler without a socket, e.g. in benchmarks.
+     */
+    public Client(MessageCodec codec) {
+
+        this.codec = codec;
+        policy = createPolicy(algorithm);
+        connected = true;
+
+    }
+
     public void ClientSetup() {
 
         // Say Hello and sign in
@@ -159,287 +439,713 @@ public class Client {
      */
     public void ClientScheduler() {
 
-        String currentJob = sendCommand("REDY");
-        String[] currentJobDetails = currentJob.split(" ");
-        String[] status = {""};
+        // The sort order and job queue slots are found from the config before the first REDY if it was given
+        boolean configLoaded = sessionConfig != null && loadSystemConfig(sessionConfig);
 
-        // Save an initial copy of all server info
-        RESCAll();
-        initialAllServerInfo = allServerInfo;
+        // The first job is read before RESCAll() reuses the codec's buffer
+        boolean jobReceived = nextJob();
+        boolean scheduleFailed = false;
 
-        // Save another copy so that data in both ArrayLists are not linked
         RESCAll();
-        int indexOfLargestServer = 0;
-        for(int i = 0; i < allServerInfo.size(); i++) {
-            if( Integer.parseInt(allServerInfo.get(indexOfLargestServer).get(4)) < Integer.parseInt(allServerInfo.get(i).get(4)) )
-                indexOfLargestServer = i;
+        initialiseServers(configLoaded, job.submitTime);
+
+        while(jobReceived && !scheduleFailed) {
+
+            // Place the jobs the server sends ahead together
+            if(lookaheadWindow > 1) {
+                jobReceived = scheduleWindow();
+                scheduleFailed = !connected || codec.lineStartsWith("ERR:");
+                continue;
+            }
+
+            // Forget jobs that should have completed long ago, in case the server does not send JCPL
+            jobQueues.advance(job.submitTime);
+
+            // Collect information on the servers the job can run on when the local copy can no longer be trusted
+            if(resourceModel.needsRefresh(job.submitTime))
+                queryPlanner.expire();
+
+            boolean refreshed = queryPlanner.plan(job);
+            int predictedType = -1, predictedID = -1;
+
+            // The server the local copy would have chosen is compared to the one chosen once it has been refreshed, the
+            // interval stays at 1 while the server has not sent a JCPL
+            boolean compared = refreshed && driftMonitor != null && !resourceModel.hasDrifted(job.submitTime) &&
+                    resourceModel.completionsReported();
+            if(compared) {
+
+                int predicted = timedPredict(job);
+                compared = predicted != SchedulingPolicy.NO_PREDICTION;
+                if(predicted >= 0) {
+                    predictedType = allServerInfo.type[predicted];
+                    predictedID = allServerInfo.id[predicted];
+                }
+
+            }
+
+            if(refreshed)
+                refreshServers(job.submitTime);
+
+            int server = timedFindServer(job);
+
+            if(compared) {
+                driftMonitor.decided(server == -1 ? predictedType == -1 :
+                        allServerInfo.type[server] == predictedType && allServerInfo.id[server] == predictedID);
+                resourceModel.refreshInterval(driftMonitor.interval());
+            }
+
+            // No server could be found using the local copy, check again with up to date information
+            if(server == -1 && !refreshed) {
+                queryPlanner.expire();
+                queryPlanner.plan(job);
+                refreshServers(job.submitTime);
+                server = timedFindServer(job);
+            }
+
+            // Run the job
+            codec.append("SCHD ")
+                    .append(job.id).append(' ')
+                        .append(allServerInfo.typeName(server)).append(' ')
+                            .append(allServerInfo.id[server]);
+            sendEncodedCommand(true);
+
+            scheduleFailed = !connected || codec.lineStartsWith("ERR:");
+            if(metrics != null)
+                metrics.cycle.record(System.nanoTime() - cycleStart);
+            if(codec.lineEquals("OK")) {
+                jobsScheduled++;
+                place(server, job);
+                if(recorder != null)
+                    recorder.scheduled(job.id, allServerInfo, server);
+            }
+
+            // Goto next job
+            jobReceived = nextJob();
+
+        }
+
+        if(recorder != null)
+            recorder.close();
+
+    }
+
+    /**
+     * Set up the scheduler once the first RESC All has been read into allServerInfo, at the given time. An initial
+     * copy of all server info is saved, the copy is not linked to the data refreshed by RESCAll().
+     * @param configLoaded - true if the sort order and job queue slots have already been found from a config.
+     */
+    public void initialiseServers(boolean configLoaded, int time) {
+
+        resourceModel.refreshed(allServerInfo, time);
+        initialAllServerInfo = allServerInfo.copy();
+        queryPlanner.catalogue(initialAllServerInfo);
+
+        // The config is only used if it lists every server type of the server
+        if(!configLoaded || allServerInfo.typeCount() > serverTypeOrder.length) {
+            findAllServerInfoSortOrder();
+            jobQueues.reset(allServerInfo);
+        }
+
+        findServerTypeCosts();
+        policy.onInit(this);
+
+    }
+
+    /**
+     * Apply a job placed on a server to the job queues and the local copy of the servers.
+     */
+    public void place(int server, Job currentJob) {
+
+        jobQueues.scheduled(allServerInfo, server, currentJob, !hasSufficientResources(allServerInfo, server, currentJob),
+                predictStart(server, currentJob));
+        resourceModel.scheduled(allServerInfo, server, currentJob);
+
+    }
+
+    /**
+     * Lookahead scheduling ("-w window")
+     * Rather than scheduling each job as soon as it is received, REDY is sent again until the window holds the given
+     * number of jobs. The jobs are then placed together from the largest to the smallest with the algorithm given by
+     * "-a", each placement is applied to the local copy of the servers before the next job is placed, so e.g. Best-Fit
+     * becomes Best-Fit-Decreasing over the window. SCHD is still sent in the order the jobs were received.
+     *
+     * Small jobs no longer take the space a larger job of the same window needs, at the cost of the earlier jobs of the
+     * window waiting until the last one has been submitted.
+     *
+     * With "-w window:span" a window is also closed once a job is submitted more than span seconds after the first job
+     * of the window, that job is then the first job of the next window, so jobs do not wait long for a quiet workload.
+     *
+     * A server that sends the same job again for a REDY until it has been scheduled, as ds-server does, cannot fill a
+     * window. The window is then turned off and every later job is scheduled as soon as it is received.
+     *
+     * @return true if the next job has been received, its details are then in job.
+     */
+    private boolean scheduleWindow() {
+
+        if(window.length < lookaheadWindow) {
+
+            window = new Job[lookaheadWindow];
+            for(int k = 0; k < window.length; k++)
+                window[k] = new Job();
+
+            windowServer = new int[lookaheadWindow];
+            windowOrder = new int[lookaheadWindow];
+
+        }
+
+        long windowStart = cycleStart;
+
+        // Fill the window, job already holds its first job
+        window[0].set(job);
+        int count = 1;
+        boolean moreJobs = true, held = false;
+
+        while(count < lookaheadWindow) {
+
+            if(!nextJob()) {
+                moreJobs = false;
+                break;
+            }
+
+            if(job.id == window[count - 1].id) {
+                lookaheadWindow = 1;
+                break;
+            }
+
+            // The job is kept in job for the next window
+            if(lookaheadWindowSpan > 0 && job.submitTime - window[0].submitTime > lookaheadWindowSpan) {
+                held = true;
+                break;
+            }
+
+            window[count++].set(job);
+
+        }
+
+        // Every job of the window starts no earlier than the last submission, which is the current time of the server
+        int now = held ? job.submitTime : window[count - 1].submitTime;
+        for(int k = 0; k < count; k++)
+            window[k].submitTime = now;
+
+        jobQueues.advance(now);
+
+        if(resourceModel.needsRefresh(now))
+            queryPlanner.expire();
+
+        boolean refreshed = false;
+        for(int k = 0; k < count; k++)
+            refreshed |= queryPlanner.plan(window[k]);
+
+        if(refreshed)
+            refreshServers(now);
+
+        // Largest jobs first, jobs of the same size keep the order they were received in
+        for(int k = 0; k < count; k++) {
+
+            int position = k;
+            while(position > 0 && isLarger(window[k], window[windowOrder[position - 1]])) {
+                windowOrder[position] = windowOrder[position - 1];
+                position--;
+            }
+
+            windowOrder[position] = k;
+
+        }
+
+        for(int k = 0; k < count; k++) {
+
+            Job windowJob = window[windowOrder[k]];
+            int server = timedFindServer(windowJob);
+
+            // No server could be found using the local copy, check again before any job of the window is placed
+            if(server == -1 && !refreshed && k == 0) {
+
+                queryPlanner.expire();
+                for(int j = 0; j < count; j++)
+                    queryPlanner.plan(window[j]);
+
+                refreshServers(now);
+                server = timedFindServer(windowJob);
+
+            }
+
+            // Every server that could run the job may be booting for jobs placed earlier in the window
+            if(server == -1)
+                server = findEarliestCompletion(windowJob);
+
+            windowServer[windowOrder[k]] = server;
+            place(server, windowJob);
+
+        }
+
+        // Run the jobs in the order they were received
+        for(int k = 0; k < count; k++) {
+
+            codec.append("SCHD ")
+                    .append(window[k].id).append(' ')
+                        .append(allServerInfo.typeName(windowServer[k])).append(' ')
+                            .append(allServerInfo.id[windowServer[k]]);
+            sendEncodedCommand(true);
+
+            if(metrics != null)
+                metrics.cycle.record(System.nanoTime() - windowStart);
+            if(!codec.lineEquals("OK"))
+                return false;
+
+            jobsScheduled++;
+            if(recorder != null)
+                recorder.scheduled(window[k].id, allServerInfo, windowServer[k]);
+
         }
 
-        findAllServerInfoSortOrder();
+        // The window was full, or the server sent its last job again which has now been scheduled
+        return held || moreJobs && nextJob();
+
+    }
+
+    // Larger by cores, then memory, then disk
+    private static boolean isLarger(Job a, Job b) {
+
+        if(a.cores != b.cores)
+            return a.cores > b.cores;
+        if(a.memory != b.memory)
+            return a.memory > b.memory;
+        return a.disk > b.disk;
+
+    }
+
+    /**
+     * Send REDY until the server replies with a job or ends the session, every other event is used to keep the local
+     * copy of the servers up to date (see ServerEvent):
+     *
+     *      JCPL        the resources of the completed job are returned to its server.
+     *      RESF        the failed server's jobs are forgotten and it is given no resources.
+     *      RESR        the recovered server is inactive with all of its initial resources.
+     *
+     * @return true if the server replied with a job (JOBN or JOBP), the job's details are then in job.
+     */
+    public boolean nextJob() {
+
+        if(metrics != null)
+            cycleStart = System.nanoTime();
+
+        while(true) {
+
+            codec.append("REDY");
+            sendEncodedCommand(true);
+
+            if(!connected)
+                return false;
+
+            event.parse(codec, allServerInfo);
+            if(recorder != null)
+                recorder.event(event, allServerInfo);
+
+            if(!apply(event))
+                return event.type == ServerEvent.JOB;
+
+        }
+
+    }
+
+    /**
+     * Apply a reply to REDY to the local copy of the servers and to the policy, see nextJob().
+     * @return true if the event has been applied and the next reply is needed, false for a job or the end of the
+     * session.
+     */
+    public boolean apply(ServerEvent event) {
+
+        switch(event.type) {
+
+            case ServerEvent.JOB:
+                policy.onJobSubmit(event.job);
+                return false;
+
+            case ServerEvent.COMPLETED:
+                resourceModel.completed(allServerInfo, initialAllServerInfo, event.jobID);
+                jobQueues.completed(event.time, event.jobID);
+                policy.onJobComplete(event.time, event.jobID);
+                return true;
+
+            case ServerEvent.FAILED:
+                if(event.server != -1) {
+                    resourceModel.failed(allServerInfo, event.server);
+                    jobQueues.validate(allServerInfo, event.server); // no jobs, the same as an empty LSTJ
+                    policy.onServerFailed(event.server, event.time);
+                }
+                return true;
+
+            case ServerEvent.RECOVERED:
+                if(event.server != -1 && event.server < initialAllServerInfo.size) {
+                    resourceModel.recovered(allServerInfo, initialAllServerInfo, event.server, event.time);
+                    policy.onServerRecovered(event.server, event.time);
+                }
+                return true;
+
+            default:
+                return false; // NONE, or anything else ends the session
+
+        }
+
+    }
+
+    /**
+     * Find a server for the job using findServer(), the time taken is recorded if statistics are enabled.
+     */
+    private int timedFindServer(Job currentJob) {
+
+        if(metrics == null)
+            return findServer(currentJob);
+
+        long start = System.nanoTime();
+        int server = findServer(currentJob);
+        metrics.select.record(System.nanoTime() - start);
+
+        return server;
+
+    }
+
+    /**
+     * Find the server the policy would choose from the servers before they are refreshed (see
+     * SchedulingPolicy.predict()), the time taken is recorded if statistics are enabled.
+     */
+    private int timedPredict(Job currentJob) {
 
-        while(!currentJob.equals("NONE") && !status[0].equals("ERR:")) {
+        if(metrics == null)
+            return policy.predict(currentJob);
 
-            currentJobDetails = currentJob.split(" ");
-            String serverType = "";
-            String serverID = "";
+        long start = System.nanoTime();
+        int server = policy.predict(currentJob);
+        metrics.predict.record(System.nanoTime() - start);
 
-            // Collect information on all servers
-            RESCAll();
+        return server;
 
-            // AllToLargest
-            if (algorithm == 0) {
-                serverType = allServerInfo.get(indexOfLargestServer).get(0);
-                serverID = "0";
-            }
+    }
 
-            // First-Fit
-            else if (algorithm == 1) {
+    /**
+     * Find a server for the job using the policy specified by "-a".
+     * @return the index of the server in allServerInfo, or -1 if no server can run the job.
+     */
+    public int findServer(Job currentJob) {
+        return policy.select(currentJob);
+    }
 
-                // Sort All Servers from smallest to largest
-                allServerInfo = sortAllServerInfo(allServerInfo);
-                initialAllServerInfo = sortAllServerInfo(initialAllServerInfo);
+    // Client Scheduler Algorithms
 
-                ArrayList<String> firstFitServer = findFirstFit(currentJobDetails);
-                serverType = firstFitServer.get(0);
-                serverID = firstFitServer.get(1);
+    /**
+     * Best-Fit and Worst-Fit over all three resources using the fitness given by "-f", see Fitness.
+     * @param tightest - true for Best-Fit, the server with the lowest score, false for Worst-Fit, the highest score.
+     * @return the server with sufficient resources and the best score, ties are broken in the same way as the index
+     * (Best-Fit the earliest available time, Worst-Fit an immediately available server, then list order). If none are
+     * found, return the active server with sufficient initial resources and the best score of its initial resources.
+     */
+    public int findFittest(Job currentJob, boolean tightest) {
 
-            }
+        int server = fittest(allServerInfo, currentJob, tightest, false);
+        if(server != -1)
+            return server;
 
-            // Best-Fit
-            else if (algorithm == 2) {
+        return fittest(initialAllServerInfo, currentJob, tightest, true);
 
-                ArrayList<String> bestFitServer = findBestFit(currentJobDetails);
-                serverType = bestFitServer.get(0);
-                serverID = bestFitServer.get(1);
+    }
 
-            }
+    // Helper method for findFittest(), every server is given a key in one pass without branches and the server with
+    // the lowest key is found in a second pass, servers that can not be used are given the largest key
+    private int fittest(ServerTable servers, Job currentJob, boolean tightest, boolean initial) {
 
-            // Worst-Fit
-            else if (algorithm == 3) {
+        // The initial resources of a server are only used if it is active, which is found in allServerInfo
+        int size = initial ? Math.min(servers.size, allServerInfo.size) : servers.size;
 
+        if(fitnessScores.length < size)
+            fitnessScores = new int[size];
 
+        int[] keys = fitnessScores;
+        fitness.score(size, servers.cores, servers.memory, servers.disk, currentJob, keys);
 
-                ArrayList<String> worstFitServer = findWorstFit(currentJobDetails);
-                serverType = worstFitServer.get(0);
-                serverID = worstFitServer.get(1);
+        int sign = tightest ? 1 : -1;
+        int activeOnly = initial ? -1 : 0;
+        int unavailablePenalty = tightest || initial ? 0 : UNAVAILABLE_PENALTY;
+        int[] state = allServerInfo.state;
 
-            }
+        for(int i = 0; i < size; i++) {
 
-            // Run the job
-            status = sendCommand("SCHD " +
-                            currentJobDetails[2] + " " +
-                                serverType + " " +
-                                    serverID).split(" ");
+            // -1 if one of the differences is negative, i.e. the server does not have sufficient resources
+            int excluded = ((servers.cores[i] - currentJob.cores) | (servers.memory[i] - currentJob.memory) |
+                    (servers.disk[i] - currentJob.disk)) >> 31;
+            excluded |= nonZero(state[i] ^ ServerTable.ACTIVE) & activeOnly;
 
-            // Goto next job
-            currentJob = sendCommand("REDY");
+            // Worst-Fit only uses a server that is not immediately available (idle or active) when none are
+            int key = keys[i] * sign + (nonZero((state[i] & ~1) ^ ServerTable.IDLE) & unavailablePenalty);
+            keys[i] = (key & ~excluded) | (Integer.MAX_VALUE & excluded);
 
         }
 
-    }
-
-    // Client Scheduler Algorithms
-
-    /**
-     * First-Fit Algorithm
-     * @return the first server with sufficient resources to run the job, if none are found, check based on initial
-     * resource capacity.
-     */
-    public ArrayList<String> findFirstFit(String[] currentJob) {
+        // Ties are broken by the earliest available time for Best-Fit, then list order
+        boolean byAvailTime = tightest && !initial;
+        int fittest = -1;
+        int fittestKey = Integer.MAX_VALUE;
 
-        // Traverse through all servers
-        for(ArrayList<String> server: allServerInfo) {
+        for(int i = 0; i < size; i++) {
 
-            // Return the first server with sufficient resources
-            if(hasSufficientResources(server, currentJob)) {
-                return server;
+            int key = keys[i];
+            if(key <= fittestKey && key != Integer.MAX_VALUE && (key < fittestKey ||
+                    byAvailTime && servers.relativeAvailTime(i) < servers.relativeAvailTime(fittest))) {
+                fittest = i;
+                fittestKey = key;
             }
 
         }
 
-        // Traverse through all servers based on initial check of resources
-        for(int i = 0; i < initialAllServerInfo.size(); i++) {
-
-            // Return the first server with sufficient resources and is active --> serverState = 3 (Active / Busy)
-            if(hasSufficientResources(initialAllServerInfo.get(i), currentJob)) {
-                if(isServerActive(allServerInfo.get(i))) {
-                    return allServerInfo.get(i);
-                }
-            }
+        return fittest;
 
-        }
+    }
 
-        // If null is returned, no server exists that has sufficient resources to start the job
-        return null;
+    // Added to the key of a server that is not immediately available, more than any score, see fittest()
+    private static final int UNAVAILABLE_PENALTY = 2 * Fitness.SHARE;
 
+    // -1 if x is not 0, otherwise 0
+    private static int nonZero(int x) {
+        return (x | -x) >> 31;
     }
 
     /**
-     * Best-Fit Algorithm
-     * @return the best-fit server that has sufficient resources to run the job, if none are found, return the best-fit
-     * active server based on initial resource capacity
+     * Cost Algorithm
+     * @return the index of the server that runs the job for the lowest rental cost plus the cost of the job's delay,
+     * -1 if no server has the initial resources to run the job.
      *
-     * The best-fit is calculated using a fitness value, this fitness value is the difference between the server's
-     * number of cores and the job's required number of cores. A server is considered the best-fit when this difference
-     * is closer to 0 (Can only be positive).
+     * A server is paid for at its type's hourly rate from the time it starts booting until its last job completes, so
+     * the cost of a job is how much it extends the time the server is paid for:
      *
+     *      - Idle or active with sufficient resources, the job starts now and costs the time it runs past the
+     *        estimated completion of the server's other jobs (0 if they all complete after it). An idle server is
+     *        paid for since its last job completed, so the time it has been idle is part of the cost.
+     *      - Booting, the same but the job starts once the server has booted.
+     *      - Inactive, the server is paid for while it boots and while the job runs.
+     *      - Otherwise the job waits for the server's other jobs and costs its whole runtime.
+     *
+     * The delay until the job starts (boot up or queueing) is paid for at the rate of the cheapest server type that can
+     * run the job, so an already booted server is preferred until waiting for it costs more than booting a cheap one.
+     * If two servers cost the same the one that starts the job sooner is used.
      */
-    public ArrayList<String> findBestFit(String[] currentJob) {
+    public int findLowestCost(Job currentJob) {
 
-        int bestFit = Integer.MAX_VALUE, minAvail = Integer.MAX_VALUE;
-        ArrayList<String> bestFitServer = null;
+        int now = currentJob.submitTime;
+        int search = ++typeSearches;
 
-        // Traverse through all servers
-        for(ArrayList<String> server: allServerInfo) {
+        // Rate of the delay
+        double delayRate = Double.MAX_VALUE;
+        for(int t = 0; t < serverTypeRate.length; t++) {
+            if(serverTypeCores[t] >= currentJob.cores && serverTypeMemory[t] >= currentJob.memory &&
+                    serverTypeDisk[t] >= currentJob.disk)
+                delayRate = Math.min(delayRate, serverTypeRate[t]);
+        }
 
-            // Server must have sufficient resources to run the job
-            if(hasSufficientResources(server, currentJob)) {
+        if(delayRate == Double.MAX_VALUE)
+            return -1;
 
-                int fitnessValue = calculateFitnessValue(server, currentJob);
-                int serverAvail = Integer.parseInt(server.get(3));
+        int best = -1;
+        double bestScore = Double.MAX_VALUE;
+        int bestDelay = Integer.MAX_VALUE;
 
-                /**
-                 * If there is a server with a lower fitness value set that server as the server with the best-fit,
-                 * otherwise if there is a server with the same fitness value but is available in a shorter amount of
-                 * time set that server as the server with best-fit.
-                 */
-                if( (fitnessValue < bestFit) || (fitnessValue == bestFit && serverAvail < minAvail) ) {
+        for(int i = 0; i < allServerInfo.size; i++) {
 
-                    bestFit = fitnessValue;
-                    minAvail = serverAvail;
-                    bestFitServer = server;
+            int serverType = allServerInfo.type[i];
+            int serverState = allServerInfo.state[i];
 
-                }
+            if(serverState == ServerTable.UNAVAILABLE || !hasSufficientResources(initialAllServerInfo, i, currentJob))
+                continue;
 
+            // Every inactive server of a type costs the same, only the first is checked
+            if(serverState == ServerTable.INACTIVE) {
+                if(serverTypeSeen[serverType] == search)
+                    continue;
+                serverTypeSeen[serverType] = search;
             }
 
-        }
+            int completion = jobQueues.completionTime(allServerInfo, i);
+            int start, paidUntil;
+
+            if(serverState == ServerTable.INACTIVE) {
+                start = now + resourceModel.bootupTime(serverType);
+                paidUntil = now;
+            } else if(hasSufficientResources(allServerInfo, i, currentJob)) {
+                start = serverState == ServerTable.BOOTING ? Math.max(now, allServerInfo.availTime[i]) : now;
+                paidUntil = completion > 0 ? completion : start;
+            } else {
+                start = Math.max(now, completion);
+                paidUntil = start;
+            }
 
-        if(bestFitServer != null) {
-            return bestFitServer;
-        } else {
+            double cost = Math.max(0, start + currentJob.estRuntime - paidUntil) * serverTypeRate[serverType];
+            int delay = start - now;
+            double score = cost + delay * delayRate;
 
-            bestFit = Integer.MAX_VALUE;
-            bestFitServer = null;
+            if(score < bestScore || (score == bestScore && delay < bestDelay)) {
+                best = i;
+                bestScore = score;
+                bestDelay = delay;
+            }
 
-            // Traverse through all servers based on initial check of resources
-            for(int i = 0; i < initialAllServerInfo.size(); i++) {
+        }
 
-                ArrayList<String> initialServer = initialAllServerInfo.get(i);
-                ArrayList<String> currentServer = allServerInfo.get(i);
+        return best;
 
-                // Server must have sufficient resources to run the job
-                if(hasSufficientResources(initialServer, currentJob)) {
+    }
 
-                    int fitnessValue = calculateFitnessValue(initialServer, currentJob);
+    /**
+     * Earliest Completion Algorithm
+     * @return the index of the server predicted to complete the job soonest, -1 if no server has the initial resources
+     * to run the job.
+     *
+     * The start of the job on each server is predicted by predictStart() from the server's state and the timeline of
+     * the jobs already scheduled on it, the job's runtime is the same on every server so the server with the earliest
+     * start completes it soonest. Of the servers that start it at the same time, the one with the fewest initial cores
+     * is used so larger servers are kept for larger jobs.
+     */
+    public int findEarliestCompletion(Job currentJob) {
 
-                    // The server's available time is not checked since all active servers are busy
-                    if( (fitnessValue < bestFit) && isServerActive(currentServer)) {
+        int search = ++typeSearches;
+        int best = -1;
+        int bestStart = Integer.MAX_VALUE;
 
-                        bestFit = fitnessValue;
-                        bestFitServer = initialServer;
+        for(int i = 0; i < allServerInfo.size; i++) {
 
-                    }
+            int serverType = allServerInfo.type[i];
+            int serverState = allServerInfo.state[i];
 
-                }
+            if(serverState == ServerTable.UNAVAILABLE || !hasSufficientResources(initialAllServerInfo, i, currentJob))
+                continue;
 
+            // Every inactive server of a type starts the job at the same time, only the first is checked
+            if(serverState == ServerTable.INACTIVE) {
+                if(serverTypeSeen[serverType] == search)
+                    continue;
+                serverTypeSeen[serverType] = search;
             }
 
-            return bestFitServer;
+            int start = predictStart(i, currentJob);
+
+            if(start < bestStart || (start == bestStart &&
+                    initialAllServerInfo.cores[i] < initialAllServerInfo.cores[best])) {
+                best = i;
+                bestStart = start;
+            }
 
         }
 
+        return best;
 
     }
 
     /**
-     * Worst-Fit Algorithm
-     * @return the worst-fit server that has sufficient resources to run the job, if none are found, return the second
-     * worst-fit (altFit), if none are found, return the worst-fit active server based on initial resource capacity.
-     *
-     * The worst-fit is calculated similarly to best-fit in that a fitness value is calculated, however the worst-fit
-     * server is found when a server has the biggest fitness value (Larger the better).
-     *
+     * Predict when a job scheduled now on server i would start: once the server has booted and, if it does not have the
+     * resources available, once enough of the jobs scheduled before it have completed (see JobQueueCache).
      */
-    public ArrayList<String> findWorstFit(String[] currentJob) {
-
-        int worstFit = Integer.MIN_VALUE;
-        ArrayList<String> worstFitServer = null;
+    public int predictStart(int i, Job currentJob) {
 
-        int altFit = Integer.MIN_VALUE;
-        ArrayList<String> altFitServer = null;
+        int now = currentJob.submitTime;
+        int ready = now;
 
-        // Traverse through all servers
-        for(ArrayList<String> server: allServerInfo) {
+        if(allServerInfo.state[i] == ServerTable.INACTIVE)
+            ready = now + resourceModel.bootupTime(allServerInfo.type[i]);
+        else if(allServerInfo.state[i] == ServerTable.BOOTING)
+            ready = Math.max(now, allServerInfo.availTime[i]);
 
-            // Server must have sufficient resources to run the job
-            if(hasSufficientResources(server, currentJob)) {
+        // A server with the resources available starts the job as soon as it is ready
+        if(hasSufficientResources(allServerInfo, i, currentJob))
+            return ready;
 
-                int fitnessValue = calculateFitnessValue(server, currentJob);
+        return jobQueues.earliestStart(initialAllServerInfo, i, currentJob, ready);
 
-                /**
-                 * If there is a server with a higher fitness value and it is immediately available set that server as
-                 * the server with the worst-fit
-                 */
-                if( (fitnessValue > worstFit) && isServerImmediatelyAvailable(server) ) {
+    }
 
-                    worstFit = fitnessValue;
-                    worstFitServer = server;
+    /**
+     * Is run once at the start of ClientScheduler() after the RESCAll command has been called, finds the hourly rate
+     * and the largest initial resources of each server type for findLowestCost() and the fitness given by "-f".
+     *
+     * Rates are taken from the config given by "-c". A type without a rate, e.g. when no config was given, is given
+     * 0.1 per core per hour, the rate of most server types in the configs of "Client Testing".
+     */
+    public void findServerTypeCosts() {
 
-                }
+        int typeCount = allServerInfo.typeCount();
+        serverTypeRate = new double[typeCount];
+        serverTypeCores = new int[typeCount];
+        serverTypeMemory = new int[typeCount];
+        serverTypeDisk = new int[typeCount];
+        serverTypeSeen = new int[typeCount];
 
-                /**
-                 * If there is a server with a higher fitness value that is not immediately available (Inactive State)
-                 * set that server as the server with the second worst-fit
-                  */
-                else if (fitnessValue > altFit && !isServerImmediatelyAvailable(server)) {
+        for(int i = 0; i < initialAllServerInfo.size; i++) {
 
-                    altFit = fitnessValue;
-                    altFitServer = server;
+            int serverType = initialAllServerInfo.type[i];
+            serverTypeCores[serverType] = Math.max(serverTypeCores[serverType], initialAllServerInfo.cores[i]);
+            serverTypeMemory[serverType] = Math.max(serverTypeMemory[serverType], initialAllServerInfo.memory[i]);
+            serverTypeDisk[serverType] = Math.max(serverTypeDisk[serverType], initialAllServerInfo.disk[i]);
 
-                }
+        }
 
+        // The types of the config were given ids by loadSystemConfig()
+        if(sessionConfig != null) {
+            for(SystemConfig.ServerType serverType: sessionConfig.serverTypes) {
+                int t = allServerInfo.typeId(serverType.name);
+                if(t < typeCount)
+                    serverTypeRate[t] = serverType.hourlyRate;
             }
+        }
 
+        for(int t = 0; t < typeCount; t++) {
+            if(serverTypeRate[t] <= 0)
+                serverTypeRate[t] = 0.1 * serverTypeCores[t];
         }
 
-        if(worstFitServer != null) {
-            return worstFitServer;
-        } else if(altFitServer != null) {
-            return altFitServer;
-        } else {
+        // The fitness compares the resources left over with the largest server type
+        if(fitness != null) {
+
+            int cores = 0, memory = 0, disk = 0;
+            for(int t = 0; t < typeCount; t++) {
+                cores = Math.max(cores, serverTypeCores[t]);
+                memory = Math.max(memory, serverTypeMemory[t]);
+                disk = Math.max(disk, serverTypeDisk[t]);
+            }
+
+            fitness.capacity(cores, memory, disk);
 
-            /**
-             * If no worst-fit server has been found (No server with sufficient resources has been found), find the
-             * server with the worst-fit based on initial resource capacity.
-              */
+        }
 
-            worstFit = Integer.MIN_VALUE;
-            worstFitServer = null;
+    }
 
-            // Traverse through all servers based on initial check of resources
-            for(int i = 0; i < initialAllServerInfo.size(); i++) {
+    /**
+     * @return the fitness with the given name, cores, dominant or weighted[:cores,memory,disk], or null for cores since
+     * Best-Fit and Worst-Fit then use the ServerIndex.
+     * @throws IllegalArgumentException if the name or weights are not valid.
+     */
+    static Fitness createFitness(String name) {
 
-                ArrayList<String> initialServer = initialAllServerInfo.get(i);
-                ArrayList<String> currentServer = allServerInfo.get(i);
+        String[] parts = name.split(":", 2);
 
-                // Server must have sufficient resources to run the job
-                if(hasSufficientResources(initialServer, currentJob)) {
+        switch(parts[0]) {
 
-                    int fitnessValue = calculateFitnessValue(initialServer, currentJob);
+            case "cores":
+                return null;
 
-                    if( fitnessValue > worstFit && isServerActive(currentServer) ) {
+            case "dominant":
+                return new DominantResourceFitness();
 
-                        worstFit = fitnessValue;
-                        worstFitServer = initialServer;
+            case "weighted":
 
-                    }
+                if(parts.length == 1)
+                    return new WeightedFitness(1, 1, 1);
 
-                }
+                String[] weights = parts[1].split(",");
+                if(weights.length != 3)
+                    throw new IllegalArgumentException("Three weights are needed: " + parts[1]);
 
-            }
+                return new WeightedFitness(Double.parseDouble(weights[0]), Double.parseDouble(weights[1]),
+                        Double.parseDouble(weights[2]));
+
+            default:
+                throw new IllegalArgumentException("Unknown fitness: " + name);
 
-            return worstFitServer;
         }
 
     }
@@ -451,8 +1157,8 @@ public class Client {
      */
     public boolean isAnyServerImmediatelyAvailable() {
 
-        for(ArrayList<String> server: allServerInfo) {
-            if(isServerImmediatelyAvailable(server))
+        for(int i = 0; i < allServerInfo.size; i++) {
+            if(isServerImmediatelyAvailable(allServerInfo, i))
                 return true;
         }
 
@@ -462,9 +1168,9 @@ public class Client {
 
     public boolean isAllServersActive() {
 
-        for(ArrayList<String> server: allServerInfo) {
+        for(int i = 0; i < allServerInfo.size; i++) {
 
-            if(!isServerActive(server)) {
+            if(!isServerActive(allServerInfo, i)) {
                 return false;
             }
 
@@ -477,62 +1183,61 @@ public class Client {
     /**
      * Return true if the selected server is active
      */
-    public boolean isServerActive(ArrayList<String> server) {
-
-        int serverState = Integer.parseInt(server.get(2));
-
-        if(serverState == 3)
-            return true;
+    public boolean isServerActive(ServerTable servers, int server) {
 
-        return false;
+        return servers.state[server] == ServerTable.ACTIVE;
 
     }
 
     /**
      * Return true if the selected server is idle
      */
-    public boolean isServerIdle(ArrayList<String> server) {
-
-        int serverState = Integer.parseInt(server.get(2));
-
-        if(serverState == 2)
-            return true;
+    public boolean isServerIdle(ServerTable servers, int server) {
 
-        return false;
+        return servers.state[server] == ServerTable.IDLE;
 
     }
 
     /**
      * Job with the largest wait time is set as the servers wait time
+     *
+     * The jobs of the server are read from jobQueues, which is kept from the jobs scheduled and completed by this client.
+     * Every validationInterval ("-l") queries the jobs are requested from the server using LSTJ instead and replace the
+     * cached jobs of the server.
      */
-    public int calculateServerWaitTime(ArrayList<String> server) {
+    public int calculateServerWaitTime(ServerTable servers, int server) {
 
         // Server is instantly available when idle
-        if(isServerIdle(server))
+        if(isServerIdle(servers, server))
             return 0;
 
-        // Request list of jobs from server
-        sendCommandNoLog("LSTJ "+server.get(0)+" "+server.get(1));
-        int largestJobWaitTime = 0;
-
-        String serverResponse = sendCommandNoLog("OK");
-        while(!serverResponse.equals(".")) {
+        waitTimeQueries++;
+        if(validationInterval <= 0 || waitTimeQueries % validationInterval != 0)
+            return jobQueues.waitClass(servers, server);
 
-            // Split server response into list of words
-            String[] tempJob = serverResponse.split(" ");
+        // Request list of jobs from server
+        codec.append("LSTJ ").append(servers.typeName(server)).append(' ').append(servers.id[server]);
+        sendEncodedCommand(false);
+        startData(-1);
+        jobQueues.validate(servers, server);
 
-            int currentJobWaitTime = findJobWaitTime(tempJob);
+        while(nextRecord()) {
 
-            if(currentJobWaitTime > largestJobWaitTime)
-                largestJobWaitTime = currentJobWaitTime;
+            // job_ID job_state job_start_time job_estimated_runtime #CPU_cores memory disk
+            int jobID = codec.nextInt();
+            codec.skipToken();
+            int startTime = codec.nextInt();
+            int estRuntime = codec.nextInt();
+            int cores = codec.hasNextToken() ? codec.nextInt() : 0;
+            int memory = codec.hasNextToken() ? codec.nextInt() : 0;
+            int disk = codec.hasNextToken() ? codec.nextInt() : 0;
 
-            // Goto the next job.
-            serverResponse = sendCommandNoLog("OK");
+            jobQueues.validated(servers, server, jobID, startTime, estRuntime, cores, memory, disk);
 
         }
 
         // 0 = INSTANT (BEST), 1 = SHORT, 2 = MEDIUM, 3 = LONG, 4 = PERMANENT (WORST)
-        return largestJobWaitTime;
+        return jobQueues.waitClass(servers, server);
 
     }
 
@@ -547,26 +1252,9 @@ public class Client {
      *
      * If -1 is returned the job has a runtime of nothing, it doesn't exist.
      */
-    public int findJobWaitTime(String[] currentJob) {
-
-        int currentJobWaitTime = Integer.parseInt(currentJob[3]);
-
-        if(currentJobWaitTime >= 0 && currentJobWaitTime <= 10)
-            return 0;
+    public int findJobWaitTime(int currentJobWaitTime) {
 
-        if(currentJobWaitTime >= 11 && currentJobWaitTime <= 300)
-            return 1;
-
-        if(currentJobWaitTime >= 301 && currentJobWaitTime <= 1800)
-            return 2;
-
-        if(currentJobWaitTime >= 1801 && currentJobWaitTime <= 43200)
-            return 3;
-
-        if(currentJobWaitTime >= 43201 && currentJobWaitTime <= Integer.MAX_VALUE)
-            return 4;
-
-        return -1;
+        return JobQueueCache.waitClass(currentJobWaitTime);
 
     }
 
@@ -575,11 +1263,11 @@ public class Client {
      * two different states Idle == 2 and Active == 3. This function must be used with hasSufficientResources() since
      * an active server can have insufficient resources and still be immediately be available.
      */
-    public boolean isServerImmediatelyAvailable(ArrayList<String> server) {
+    public boolean isServerImmediatelyAvailable(ServerTable servers, int server) {
 
-        int serverState = Integer.parseInt(server.get(2));
+        int serverState = servers.state[server];
 
-        if(serverState == 2 || serverState == 3)
+        if(serverState == ServerTable.IDLE || serverState == ServerTable.ACTIVE)
             return true;
 
         return false;
@@ -590,19 +1278,11 @@ public class Client {
      * A server has sufficient resources to run a job if the number of cores, memory and disk space are equal or greater
      * than the job's required resources.
      */
-    public boolean hasSufficientResources(ArrayList<String> server, String[] currentJob) {
+    public boolean hasSufficientResources(ServerTable servers, int server, Job currentJob) {
 
-        int noRequiredCores = Integer.parseInt(currentJob[4]);
-        int noRequiredMemory = Integer.parseInt(currentJob[5]);
-        int noRequiredDiskSpace = Integer.parseInt(currentJob[6]);
-        int serverCores = Integer.parseInt(server.get(4));
-        int serverMemory = Integer.parseInt(server.get(5));
-        int serverDiskSpace = Integer.parseInt(server.get(6));
-
-        if(serverCores >= noRequiredCores && serverMemory >= noRequiredMemory && serverDiskSpace >= noRequiredDiskSpace)
-            return true;
-
-        return false;
+        return servers.cores[server] >= currentJob.cores &&
+                servers.memory[server] >= currentJob.memory &&
+                    servers.disk[server] >= currentJob.disk;
 
     }
 
@@ -610,12 +1290,9 @@ public class Client {
      * @return (Always Positive) the difference between the number of cores a server has and the number of cores the
      * job requires.
      */
-    public int calculateFitnessValue(ArrayList<String> server, String[] currentJob) {
+    public int calculateFitnessValue(ServerTable servers, int server, Job currentJob) {
 
-        int noRequiredCores = Integer.parseInt(currentJob[4]);
-        int serverCores = Integer.parseInt(server.get(4));
-
-        return serverCores - noRequiredCores;
+        return servers.cores[server] - currentJob.cores;
 
     }
 
@@ -627,99 +1304,310 @@ public class Client {
      */
     public void RESCAll() {
 
-        allServerInfo = new ArrayList<>(); // Delete old information for new data
-        sendCommandNoLog("RESC All"); // Expected Response is "DATA"
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        // The number of servers does not change, so the previous response tells us how many records to expect
+        int expectedRecords = allServerInfo.size > 0 ? allServerInfo.size : -1;
+
+        if(driftMonitor != null)
+            driftMonitor.predicted(allServerInfo);
+
+        allServerInfo.clear(); // Delete old information for new data
+        codec.append("RESC All");
+        sendEncodedCommand(false); // Expected Response is "DATA"
+        startData(expectedRecords);
+
+        // Store data for each server into the table
+        while(nextRecord()) {
+            allServerInfo.add(codec);
+            if(metrics != null)
+                metrics.records++;
+        }
+
+        if(driftMonitor != null)
+            driftMonitor.refreshed(allServerInfo);
+
+        if(recorder != null)
+            recorder.servers(allServerInfo);
 
-        String temp = sendCommandNoLog("OK");
-        while(!temp.equals(".")) {
+        if(metrics != null)
+            metrics.resc.record(System.nanoTime() - start);
 
-            // Store data for each server into array
-            ArrayList<String> server = new ArrayList<>();
-            String[] tempServer = temp.split(" ");
-            for(String serverDetail: tempServer) {
-                server.add(serverDetail);
+    }
+
+    /**
+     * Resource Information Request
+     *  RESC Type server_type - The information of every server of a type, sent for each type planned by queryPlanner.
+     *  The servers read are replaced in allServerInfo where they are, the servers of the other types keep the values
+     *  of the resource model.
+     */
+    public void RESCTypes() {
+
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        if(driftMonitor != null)
+            driftMonitor.predicted(allServerInfo);
+
+        for(int t = 0; t < allServerInfo.typeCount(); t++) {
+
+            if(!queryPlanner.isPlanned(t))
+                continue;
+
+            codec.append("RESC Type ").append(allServerInfo.typeNameOf(t));
+            sendEncodedCommand(false); // Expected Response is "DATA"
+            startData(queryPlanner.servers(t));
+
+            // The servers of a type are listed together in order of their id, so each is expected after the last
+            int server = -1;
+            while(nextRecord()) {
+                server = allServerInfo.update(codec, server + 1);
+                if(metrics != null)
+                    metrics.records++;
             }
 
-            // Add server to list
-            allServerInfo.add(server);
+        }
+
+        if(driftMonitor != null)
+            driftMonitor.refreshed(allServerInfo);
+
+        if(recorder != null)
+            recorder.updated(allServerInfo, queryPlanner.planned());
+
+        if(metrics != null)
+            metrics.resc.record(System.nanoTime() - start);
+
+    }
+
+    /**
+     * Refresh the servers planned by queryPlanner and bring the resource model up to date at the given time, with a
+     * RESC All or a RESC Type for each planned server type, whichever reads fewer records.
+     */
+    public void refreshServers(int currentTime) {
 
-            // Get next server
-            temp = sendCommandNoLog("OK");
+        boolean all = queryPlanner.requestsAll();
 
+        if(all) {
+            RESCAll();
+            resourceModel.refreshed(allServerInfo, currentTime);
+        } else {
+            RESCTypes();
+            resourceModel.refreshed(allServerInfo, currentTime, queryPlanner.planned());
         }
 
+        queryPlanner.requested(all);
+
     }
 
     /**
-     * Can be called at any time generally after a RESCAll() or RESCAvail() call to sort the new data in the list
+     * Start reading the records of a DATA response to a RESC or LSTJ command, the records are then read using
+     * nextRecord(). The acknowledgements the server needs are sent in as few writes as possible:
+     *
+     *      DATA n recLen   - The server sends all n records after a single OK, and the terminating "." after another.
+     *      DATA            - The server sends one record for each OK. If pipelining is enabled ("-p") and the number of
+     *                        records is known, all of the OKs are written at once and the records are streamed back.
+     *                        Otherwise an OK is sent and a reply is waited for one record at a time.
+     *
+     * @param expectedRecords - the number of records expected, -1 if unknown.
      */
-    public ArrayList<ArrayList<String>> sortAllServerInfo(ArrayList<ArrayList<String>> serverList) {
+    public void startData(int expectedRecords) {
+
+        // Skip "DATA"
+        codec.skipToken();
 
-        ArrayList<ArrayList<String>> temp = new ArrayList<>();
+        // Batched form, the header gives the number of records
+        if(codec.hasNextToken()) {
 
-        for(int i = 0; i < sortOrder.size(); i++) {
+            dataRemaining = codec.nextInt();
+            dataMode = DATA_BATCHED;
+            sendAcknowledgements(1);
 
-            for(int j = 0; j < serverList.size(); j++) {
+        }
 
-                if(sortOrder.get(i).get(0).equals(serverList.get(j).get(0)))
-                    temp.add(serverList.get(j));
+        // Pipelined form, one OK for each record and one for the terminating "."
+        else if(pipelined && expectedRecords >= 0) {
 
-            }
+            dataRemaining = expectedRecords;
+            dataMode = DATA_PIPELINED;
+            sendAcknowledgements(expectedRecords + 1);
+
+        }
+
+        else {
+            dataMode = DATA_PER_RECORD;
+        }
+
+    }
+
+    /**
+     * Read the next record of the DATA response started by startData() into the codec.
+     * @return false once the terminating "." has been read.
+     */
+    public boolean nextRecord() {
+
+        if(dataMode == DATA_PER_RECORD) {
+            codec.append("OK");
+            sendEncodedCommand(false);
+            return connected && !codec.lineEquals(".");
+        }
 
+        if(dataRemaining > 0) {
+            dataRemaining--;
+            return readReply();
         }
 
-        return temp;
+        // All records have been read, the batched form needs another OK before the "." is sent
+        if(dataMode == DATA_BATCHED)
+            sendAcknowledgements(1);
+
+        // Read the terminating "."
+        readReply();
+        return false;
+
+    }
+
+    /**
+     * Can be called at any time generally after a RESCAll() or RESCAvail() call to sort the new data in the list, the
+     * servers are placed in the order found by findAllServerInfoSortOrder() without comparing them.
+     */
+    public void sortAllServerInfo(ServerTable serverList) {
+
+        serverList.sortByType(serverTypeRank, serverTypeOrder.length);
 
     }
 
     /**
      * Is Run once at the start of ClientScheduler() after the RESCAll command has been called.
      * Since the the coreCount of a server can change if busy, we find the order to sort the server list once
-     * before any job is scheduled.
+     * before any job is scheduled. Server types with the same core count stay in the order they were first listed.
      */
     public void findAllServerInfoSortOrder() {
 
-        for(int i = 0; i < allServerInfo.size(); i++) {
+        // Core count of each server type when it is first listed, -1 if the type has not been listed
+        int[] typeCores = new int[allServerInfo.typeCount()];
+        Arrays.fill(typeCores, -1);
 
-            if(!isServerTypeInList(allServerInfo.get(i).get(0))) {
-                addServerType(allServerInfo.get(i).get(0), allServerInfo.get(i).get(4));
+        int typeCount = 0;
+        serverTypeOrder = new int[typeCores.length];
+
+        for(int i = 0; i < allServerInfo.size; i++) {
+
+            if(typeCores[allServerInfo.type[i]] == -1) {
+                typeCores[allServerInfo.type[i]] = allServerInfo.cores[i];
+                serverTypeOrder[typeCount++] = allServerInfo.type[i];
             }
 
         }
 
+        serverTypeOrder = Arrays.copyOf(serverTypeOrder, typeCount);
+        sortServerTypes(typeCores);
+
     }
 
-    // Helper method for findAllServerInfoSortOrder()
-    public int addServerType(String serverType, String coreCount) {
+    /**
+     * Is run once at the start of ClientScheduler() before the first REDY when a config file was given (-c), the
+     * server types of the config are listed in the same order as a RESC All response so the sort order, the boot up
+     * times and the job queue slots can be found before any server data has been received.
+     * @return false if the config has no server types.
+     */
+    public boolean loadSystemConfig(SystemConfig config) {
+
+        // Intern the type names in the order they are listed so type ids match the first RESC All
+        int[] typeIds = new int[config.serverTypes.size()];
+        for(int t = 0; t < typeIds.length; t++)
+            typeIds[t] = allServerInfo.typeId(config.serverTypes.get(t).name);
 
-        ArrayList<String> temp = new ArrayList<>();
-        temp.add(serverType);
-        temp.add(coreCount);
+        int[] typeCores = new int[allServerInfo.typeCount()];
+        int[] typeSize = new int[allServerInfo.typeCount()];
+        Arrays.fill(typeCores, -1);
+
+        int typeCount = 0;
+        serverTypeOrder = new int[typeCores.length];
+
+        for(int t = 0; t < typeIds.length; t++) {
+
+            SystemConfig.ServerType serverType = config.serverTypes.get(t);
+            if(typeCores[typeIds[t]] != -1)
+                continue;
+
+            typeCores[typeIds[t]] = serverType.coreCount;
+            typeSize[typeIds[t]] = serverType.limit;
+            serverTypeOrder[typeCount++] = typeIds[t];
+            resourceModel.bootupTime(typeIds[t], serverType.bootupTime);
 
-        for(int i = 0; i < sortOrder.size(); i++) {
-            if(Integer.parseInt(coreCount) < Integer.parseInt(sortOrder.get(i).get(1))) {
-                sortOrder.add(i, temp);
-                return 0;
-            }
         }
 
-        sortOrder.add(temp);
-        return 0;
+        serverTypeOrder = Arrays.copyOf(serverTypeOrder, typeCount);
+        sortServerTypes(typeCores);
+        jobQueues.reset(typeSize);
+
+        return typeCount > 0;
 
     }
 
-    // Helper method for findAllServerInfoSortOrder()
-    public boolean isServerTypeInList(String otherServerType) {
+    /**
+     * Sort serverTypeOrder by the core count of each type and find the rank of each type.
+     * @param typeCores core count of each server type id.
+     */
+    private void sortServerTypes(int[] typeCores) {
 
-        for(ArrayList<String> server: sortOrder) {
+        // Insertion sort by core count, a type is only moved before types with more cores
+        for(int i = 1; i < serverTypeOrder.length; i++) {
 
-            if(server.get(0).equals(otherServerType))
-                return true;
+            int serverType = serverTypeOrder[i];
+            int j = i - 1;
+
+            for(; j >= 0 && typeCores[serverTypeOrder[j]] > typeCores[serverType]; j--)
+                serverTypeOrder[j + 1] = serverTypeOrder[j];
+
+            serverTypeOrder[j + 1] = serverType;
 
         }
 
-        return false;
+        serverTypeRank = new int[typeCores.length];
+        Arrays.fill(serverTypeRank, -1);
+        for(int rank = 0; rank < serverTypeOrder.length; rank++)
+            serverTypeRank[serverTypeOrder[rank]] = rank;
+
+    }
+
+    // The recorder of a session, null if the file cannot be written
+    private static WorkloadTrace createRecorder() {
+
+        try {
+            return WorkloadTrace.create(recordFile);
+        } catch(IOException i) {
+            System.out.println(i);
+            return null;
+        }
+
+    }
+
+    /**
+     * @return the log shared by every client of the program, it is opened the first time it is needed.
+     */
+    private static synchronized TraceLog sharedTrace() {
+
+        if(sharedTrace == null) {
+
+            try {
+                sharedTrace = TraceLog.open(traceFile);
+            } catch(IOException i) {
+                System.out.println(i);
+                verbose = false;
+                return null;
+            }
 
+        }
+
+        return sharedTrace;
+
+    }
+
+    /**
+     * @return false if the connection to the server could not be made or has been lost.
+     */
+    public boolean isConnected() {
+        return connected;
     }
 
     /**
@@ -735,22 +1623,10 @@ public class Client {
      */
     public String sendCommand(String argument){
 
-        try {
-
-            // Send the command to the server
-            if(verbose)
-                System.out.println("SENT: " +argument);
-            out.write((argument+"\n").getBytes());
-
-            // Read and return response from the server.
-            String serverResponse = in.readLine();
-            if(verbose)
-                System.out.println("RCVD: "+serverResponse);
-            return serverResponse;
-
-        } catch(IOException i) { System.out.println(i); }
+        codec.append(argument);
+        sendEncodedCommand(true);
 
-        return "ERR: No Response from Server.";
+        return connected ? codec.lineToString() : "ERR: No Response from Server.";
 
     }
 
@@ -762,17 +1638,169 @@ public class Client {
      */
     public String sendCommandNoLog(String argument) {
 
+        codec.append(argument);
+        sendEncodedCommand(false);
+
+        return connected ? codec.lineToString() : "ERR: No Response from Server.";
+
+    }
+
+    /**
+     * Send the command built in the codec and read the reply into the codec without creating any Strings, unless the
+     * command is logged.
+     *  e.g. codec.append("SCHD ").append(jobID).append(' ').append(serverType).append(' ').append(serverID);
+     *       sendEncodedCommand(true);
+     *
+     * @param log - log the command and reply when verbose.
+     */
+    public void sendEncodedCommand(boolean log) {
+
+        long start = metrics != null ? System.nanoTime() : 0;
+
         try {
 
             // Send the command to the server
-            out.write((argument+"\n").getBytes());
+            if(log && trace != null)
+                codec.traceCommand(trace);
+            codec.send();
+            codec.flush();
+
+            // Read the response from the server.
+            readReply();
+            if(log && trace != null) {
+                if(connected)
+                    codec.traceLine(trace);
+                else
+                    trace.receivedNothing();
+            }
 
-            // Return response from the server.
-            return in.readLine();
+        } catch(IOException i) { System.out.println(i); connected = false; }
 
-        } catch(IOException i) { System.out.println(i); }
+        if(metrics != null) {
+            metrics.command.record(System.nanoTime() - start);
+            metrics.roundTrips++;
+        }
+
+    }
+
+    /**
+     * Read the next line sent by the server into the codec.
+     * @return false if the connection to the server has been lost.
+     */
+    private boolean readReply() {
+
+        try {
+
+            if(!codec.readLine())
+                connected = false;
+
+        } catch(IOException i) { System.out.println(i); connected = false; }
+
+        return connected;
+
+    }
+
+    /**
+     * Send a number of OK acknowledgements in a single write without waiting for a reply, the replies are read by
+     * nextRecord().
+     */
+    public void sendAcknowledgements(int count) {
+
+        try {
+
+            if(acknowledgements.length < count * 3) {
+                acknowledgements = new byte[count * 3];
+                for(int i = 0; i < acknowledgements.length; i += 3) {
+                    acknowledgements[i] = 'O';
+                    acknowledgements[i + 1] = 'K';
+                    acknowledgements[i + 2] = '\n';
+                }
+            }
+
+            codec.sendRaw(acknowledgements, count * 3);
+            codec.flush();
+
+            if(metrics != null)
+                metrics.roundTrips++;
+
+        } catch(IOException i) { System.out.println(i); connected = false; }
+
+    }
+
+    /**
+     * @return true if a policy has the name given to "-a", without creating the policy. Only the policies found by
+     * ServiceLoader have to be created to learn their names, which is done once (see loadedPolicies()).
+     */
+    public static boolean isPolicy(String name) {
+        return Arrays.asList(REFERENCE_POLICIES).contains(name) || loadedPolicies().containsKey(name);
+    }
+
+    /**
+     * @return a new instance of the policy with the name given to "-a", the reference policies are checked before the
+     * ones found by ServiceLoader, or null if no policy has the name.
+     */
+    public static SchedulingPolicy createPolicy(String name) {
+
+        switch(name) {
+            case "atl":  return new AllToLargestPolicy();
+            case "ff":   return new FirstFitPolicy();
+            case "bf":   return new BestFitPolicy();
+            case "wf":   return new WorstFitPolicy();
+            case "cost": return new LowestCostPolicy();
+            case "ect":  return new EarliestCompletionPolicy();
+        }
+
+        Class<? extends SchedulingPolicy> policyClass = loadedPolicies().get(name);
+        if(policyClass == null)
+            return null;
+
+        // ServiceLoader only loads classes with a public constructor without arguments
+        try {
+            return policyClass.getConstructor().newInstance();
+        } catch(ReflectiveOperationException e) {
+            return null;
+        }
+
+    }
+
+    /**
+     * @return the class of each policy found by ServiceLoader by name, the class path is only scanned the first time.
+     * A policy named the same as a reference policy is left out.
+     */
+    private static synchronized Map<String, Class<? extends SchedulingPolicy>> loadedPolicies() {
+
+        if(loadedPolicies != null)
+            return loadedPolicies;
+
+        loadedPolicies = new HashMap<>();
+        for(SchedulingPolicy policy: ServiceLoader.load(SchedulingPolicy.class)) {
+
+            if(!Arrays.asList(REFERENCE_POLICIES).contains(policy.name()))
+                loadedPolicies.putIfAbsent(policy.name(), policy.getClass());
+
+        }
+
+        return loadedPolicies;
+
+    }
+
+    /**
+     * Display the statistics of this session in the format given by "-s".
+     */
+    public void printStatistics() {
+
+        if(statistics.equals("json"))
+            System.out.println(metrics.toJSON(jobsScheduled, codec.bytesSent(), codec.bytesReceived()));
+        else
+            System.out.print(metrics.toText(jobsScheduled, codec.bytesSent(), codec.bytesReceived()));
+
+        if(driftMonitor == null)
+            return;
 
-        return "ERR: No Response from Server.";
+        if(statistics.equals("json"))
+            System.out.println(driftMonitor.toJSON());
+        else
+            System.out.print(driftMonitor.toText(jobsScheduled));
 
     }
 
@@ -780,7 +1808,8 @@ public class Client {
 
         System.out.println("ds-sim COMP335@MQ, S1-27Apr, 2019");
         System.out.println("Usage:");
-        System.out.println("    java Client [-h] [-v] [-m] [-a algo_name]");
+        System.out.println("    java Client [-h] [-v] [-o trace_file] [-m] [-a algo_name] [-r refresh_interval|auto[:max]] [-q all|type] [-l lstj_interval] [-c config_file] [-s text|json] [-f cores|dominant|weighted[:c,m,d]] [-w window[:span]] [-e record_file] [-p] [-t socket|nio]");
+        System.out.println("    java Client -b port[:algo_name[:config_file]],... [-j threads] [client options]");
 
     }
 
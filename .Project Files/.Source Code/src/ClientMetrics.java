@@ -0,0 +1,109 @@
+import java.util.Locale;
+
+/**
+ * Client Metrics
+ * Latency histograms and counters of a client session, recorded when statistics are enabled with "-s" and displayed
+ * once QUIT has been sent. When statistics are not enabled the client has no ClientMetrics and nothing is timed.
+ *
+ *      command - a command written to the server until its reply has been read (sendEncodedCommand())
+ *      resc    - a refresh of the servers (a RESC All, or the RESC Type of each type planned by QueryPlanner) until
+ *                every record of its DATA responses has been read
+ *      select  - finding a server for a job with the algorithm given by "-a" (findServer())
+ *      predict - finding the server the algorithm would choose before a refresh, with "-r auto" (see DriftMonitor)
+ *      cycle   - a REDY until the reply to the job's SCHD has been read, including any JCPL and RESC in between
+ *
+ * Latencies are recorded in nanoseconds and displayed in microseconds.
+ */
+public class ClientMetrics {
+
+    final LatencyHistogram command = new LatencyHistogram();
+    final LatencyHistogram resc    = new LatencyHistogram();
+    final LatencyHistogram select  = new LatencyHistogram();
+    final LatencyHistogram predict = new LatencyHistogram();
+    final LatencyHistogram cycle   = new LatencyHistogram();
+
+    // Writes that are followed by waiting for a reply
+    long roundTrips = 0;
+
+    // Server records read by RESC
+    long records = 0;
+
+    private static final String[] NAMES = {"command", "resc", "select", "predict", "cycle"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private LatencyHistogram[] histograms() {
+        return new LatencyHistogram[]{command, resc, select, predict, cycle};
+    }
+
+    /**
+     * @return a summary of the session, each line starts with "#" in the same way as the server's summary.
+     */
+    public String toText(int jobs, long bytesSent, long bytesReceived) {
+
+        StringBuilder text = new StringBuilder();
+        int perJob = Math.max(1, jobs);
+
+        text.append(String.format(Locale.ROOT, "# jobs scheduled: %d, round trips: %d (%.2f per job), " +
+                "server records: %d (%.2f per job)%n", jobs, roundTrips, (double) roundTrips / perJob, records,
+                (double) records / perJob));
+        text.append(String.format(Locale.ROOT, "# bytes sent: %d, bytes received: %d (%.1f per job)%n",
+                bytesSent, bytesReceived, (double) (bytesSent + bytesReceived) / perJob));
+        text.append(String.format(Locale.ROOT, "# %-8s %10s %10s %10s %10s %10s %10s %10s%n",
+                "latency", "count", "mean us", "p50", "p90", "p99", "p99.9", "max"));
+
+        LatencyHistogram[] histograms = histograms();
+        for(int h = 0; h < histograms.length; h++) {
+
+            LatencyHistogram histogram = histograms[h];
+            text.append(String.format(Locale.ROOT, "# %-8s %10d %10.1f", NAMES[h], histogram.count(), histogram.mean() / 1000));
+            for(double percentile: PERCENTILES)
+                text.append(String.format(Locale.ROOT, " %10.1f", histogram.percentile(percentile) / 1000.0));
+            text.append(String.format(Locale.ROOT, " %10.1f%n", histogram.max() / 1000.0));
+
+        }
+
+        return text.toString();
+
+    }
+
+    /**
+     * @return the same summary as toText() as a single line JSON object, latencies are in nanoseconds.
+     */
+    public String toJSON(int jobs, long bytesSent, long bytesReceived) {
+
+        StringBuilder json = new StringBuilder();
+
+        json.append("{\"jobs\":").append(jobs)
+                .append(",\"roundTrips\":").append(roundTrips)
+                .append(",\"serverRecords\":").append(records)
+                .append(",\"bytesSent\":").append(bytesSent)
+                .append(",\"bytesReceived\":").append(bytesReceived)
+                .append(",\"latencyNs\":{");
+
+        LatencyHistogram[] histograms = histograms();
+        for(int h = 0; h < histograms.length; h++) {
+
+            LatencyHistogram histogram = histograms[h];
+            if(h > 0)
+                json.append(',');
+
+            json.append('"').append(NAMES[h]).append("\":{")
+                    .append("\"count\":").append(histogram.count())
+                    .append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", histogram.mean()))
+                    .append(",\"min\":").append(histogram.min());
+
+            for(double percentile: PERCENTILES) {
+                json.append(",\"p").append(String.valueOf(percentile).replace(".0", "").replace('.', '_'))
+                        .append("\":").append(histogram.percentile(percentile));
+            }
+
+            json.append(",\"max\":").append(histogram.max()).append('}');
+
+        }
+
+        json.append("}}");
+        return json.toString();
+
+    }
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Dominant Resource Fitness
+ * Scores a server by the largest share of any of its resources that would be left over once the job is placed, e.g.
+ * a server left with 50% of the largest server's cores, 10% of its memory and 20% of its disk scores 0.5.
+ *
+ * Best-Fit picks the server whose most plentiful leftover resource is smallest, so a job fills servers evenly on every
+ * resource rather than only on cores. Worst-Fit picks the server with the most of some resource left over.
+ */
+public class DominantResourceFitness implements Fitness {
+
+    private int coresScale = SHARE, memoryScale = SHARE, diskScale = SHARE;
+
+    @Override
+    public void capacity(int cores, int memory, int disk) {
+
+        coresScale = SHARE / Math.max(1, cores);
+        memoryScale = SHARE / Math.max(1, memory);
+        diskScale = SHARE / Math.max(1, disk);
+
+    }
+
+    @Override
+    public void score(int size, int[] cores, int[] memory, int[] disk, Job job, int[] scores) {
+
+        int jobCores = job.cores, jobMemory = job.memory, jobDisk = job.disk;
+
+        for(int i = 0; i < size; i++) {
+
+            int share = (cores[i] - jobCores) * coresScale;
+            int memoryShare = (memory[i] - jobMemory) * memoryScale;
+            int diskShare = (disk[i] - jobDisk) * diskScale;
+
+            // max() without a branch, the difference is negative when the other share is larger
+            int difference = share - memoryShare;
+            share -= difference & (difference >> 31);
+            difference = share - diskShare;
+            scores[i] = share - (difference & (difference >> 31));
+
+        }
+
+    }
+
+}
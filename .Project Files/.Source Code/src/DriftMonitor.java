@@ -0,0 +1,215 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Drift Monitor
+ * Measures how far the resource model's copy of the servers has drifted from the server by the time the table is
+ * requested again, and adapts the refresh interval ("-r auto[:max]") so RESC All is only sent as often as needed to
+ * keep the decisions the same as refreshing before every job.
+ *
+ * Before each RESC All the model's prediction of every server is saved, once the response has been read each field is
+ * compared to the server's own value:
+ *
+ *      state, avail, cores, memory, disk   - number of servers whose field was predicted wrongly
+ *
+ * When the refresh interval alone asked for the refresh the client also chooses a server for the job from the
+ * prediction before the RESC All, and again from the response (see Client.ClientScheduler()). The interval is
+ * adapted from the outcome:
+ *
+ *      the same server, nothing drifted    - the interval is doubled
+ *      the same server, some fields drifted - the interval grows by one job once as many decisions in a row were the
+ *                                            same as the interval is long
+ *      a different server                  - the interval goes back to 1
+ *
+ * so the interval grows while the model is trusted and every job is refreshed again as soon as a decision would have
+ * changed. It is never more than the maximum. The refreshes the model asks for itself (a job had to wait, a server
+ * finished booting, see ResourceModel) are still sent and are not counted as decisions. No decisions are compared until
+ * the server has sent a JCPL, a server that never does (e.g. ds-server in "Client Testing") keeps the interval at 1
+ * since the model can not know when its jobs complete. The decision before the refresh is found with
+ * SchedulingPolicy.predict(), a policy that can not predict also keeps the interval at 1.
+ */
+public class DriftMonitor {
+
+    // Fields of a server that are compared
+    private static final int FIELDS = 5;
+    private static final String[] FIELD_NAMES = {"state", "avail", "cores", "memory", "disk"};
+
+    private final int maxInterval;
+    private int interval = 1;
+
+    // Predicted fields of each server by slot (see ServerTable.slot()), and the refresh they were saved for, so the
+    // table can be in a different order when the response is read
+    private int[] predicted = new int[0];
+    private int[] savedAt = new int[0];
+    private int refreshes = 0;
+    private boolean saved = false;
+    private boolean lastDrifted = false;
+    private int agreed = 0; // decisions that were the same since the interval last changed
+
+    // Totals over the session
+    private final long[] fieldDrift = new long[FIELDS];
+    private long serversDrifted = 0;
+    private long decisions = 0;
+    private long decisionsChanged = 0;
+
+    /**
+     * @param maxInterval - the longest refresh interval, in jobs.
+     */
+    public DriftMonitor(int maxInterval) {
+        this.maxInterval = Math.max(1, maxInterval);
+    }
+
+    /**
+     * @return the number of jobs that may be scheduled before the next RESC All.
+     */
+    public int interval() {
+        return interval;
+    }
+
+    /**
+     * Save the model's prediction of every server, is called before the table is refreshed.
+     */
+    public void predicted(ServerTable servers) {
+
+        saved = false;
+        if(servers.size == 0)
+            return;
+
+        if(savedAt.length < servers.slotCount()) {
+            predicted = new int[servers.slotCount() * FIELDS];
+            savedAt = new int[servers.slotCount()];
+            Arrays.fill(savedAt, -1);
+        }
+
+        refreshes++;
+
+        for(int i = 0; i < servers.size; i++) {
+
+            int slot = servers.slot(i);
+            if(slot == -1)
+                continue;
+
+            int base = slot * FIELDS;
+            predicted[base]     = servers.state[i];
+            predicted[base + 1] = servers.availTime[i];
+            predicted[base + 2] = servers.cores[i];
+            predicted[base + 3] = servers.memory[i];
+            predicted[base + 4] = servers.disk[i];
+            savedAt[slot] = refreshes;
+
+        }
+
+        saved = true;
+
+    }
+
+    /**
+     * Compare the refreshed table to the prediction saved by predicted().
+     */
+    public void refreshed(ServerTable servers) {
+
+        if(!saved)
+            return;
+
+        saved = false;
+        lastDrifted = false;
+
+        for(int i = 0; i < servers.size; i++) {
+
+            int slot = servers.slot(i);
+            if(slot == -1 || slot >= savedAt.length || savedAt[slot] != refreshes)
+                continue;
+
+            int base = slot * FIELDS;
+            boolean relative = timeRelative(servers.state[i], predicted[base]);
+            int state     = predicted[base]     != servers.state[i]     ? 1 : 0;
+            int availTime = predicted[base + 1] != servers.availTime[i] && !relative ? 1 : 0;
+            int cores     = predicted[base + 2] != servers.cores[i]     ? 1 : 0;
+            int memory    = predicted[base + 3] != servers.memory[i]    ? 1 : 0;
+            int disk      = predicted[base + 4] != servers.disk[i]      ? 1 : 0;
+
+            fieldDrift[0] += state;
+            fieldDrift[1] += availTime;
+            fieldDrift[2] += cores;
+            fieldDrift[3] += memory;
+            fieldDrift[4] += disk;
+
+            if((state | availTime | cores | memory | disk) != 0) {
+                serversDrifted++;
+                lastDrifted = true;
+            }
+
+        }
+
+    }
+
+    /**
+     * Is called when a refresh was asked for by the refresh interval alone, with whether the server chosen from the
+     * prediction is the same as the one chosen from the refreshed table.
+     */
+    public void decided(boolean sameServer) {
+
+        decisions++;
+
+        if(!sameServer) {
+            decisionsChanged++;
+            interval = 1;
+            agreed = 0;
+        } else if(!lastDrifted) {
+            interval = Math.min(maxInterval, interval * 2);
+        } else if(++agreed >= interval) {
+            interval = Math.min(maxInterval, interval + 1);
+            agreed = 0;
+        }
+
+    }
+
+    /**
+     * @return a summary of the session, each line starts with "#" in the same way as ClientMetrics.toText().
+     */
+    public String toText(int jobs) {
+
+        StringBuilder text = new StringBuilder();
+        double perRefresh = Math.max(1, refreshes);
+
+        text.append(String.format(Locale.ROOT, "# refreshes compared: %d (%.3f per job), refresh interval: %d, " +
+                "decisions changed: %d of %d%n", refreshes, (double) refreshes / Math.max(1, jobs), interval,
+                decisionsChanged, decisions));
+        text.append(String.format(Locale.ROOT, "# servers drifted per refresh: %.2f", serversDrifted / perRefresh));
+        for(int field = 0; field < FIELDS; field++)
+            text.append(String.format(Locale.ROOT, ", %s %.2f", FIELD_NAMES[field], fieldDrift[field] / perRefresh));
+
+        return text.append(String.format("%n")).toString();
+
+    }
+
+    /**
+     * @return the same summary as toText() as a single line JSON object.
+     */
+    public String toJSON() {
+
+        StringBuilder json = new StringBuilder();
+
+        json.append("{\"refreshesCompared\":").append(refreshes)
+                .append(",\"refreshInterval\":").append(interval)
+                .append(",\"decisions\":").append(decisions)
+                .append(",\"decisionsChanged\":").append(decisionsChanged)
+                .append(",\"serversDrifted\":").append(serversDrifted)
+                .append(",\"fieldDrift\":{");
+
+        for(int field = 0; field < FIELDS; field++) {
+            if(field > 0)
+                json.append(',');
+            json.append('"').append(FIELD_NAMES[field]).append("\":").append(fieldDrift[field]);
+        }
+
+        return json.append("}}").toString();
+
+    }
+
+    // The available time of a server that is inactive or idle both times moves on with the current time
+    private static boolean timeRelative(int state, int predictedState) {
+        return state == predictedState && (state == ServerTable.INACTIVE || state == ServerTable.IDLE);
+    }
+
+}
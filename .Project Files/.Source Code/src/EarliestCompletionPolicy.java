@@ -0,0 +1,31 @@
+/**
+ * Earliest Completion
+ * Schedules a job to the server predicted to complete it first, see Client.findEarliestCompletion(). The predictions
+ * come from the job queues the client keeps for every policy.
+ */
+public class EarliestCompletionPolicy implements SchedulingPolicy {
+
+    private Client client;
+
+    @Override
+    public String name() {
+        return "ect";
+    }
+
+    @Override
+    public void onInit(Client client) {
+        this.client = client;
+    }
+
+    // Client.findEarliestCompletion() keeps nothing from one search to the next
+    @Override
+    public int predict(Job job) {
+        return select(job);
+    }
+
+    @Override
+    public int select(Job job) {
+        return client.findEarliestCompletion(job);
+    }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * First-Fit Algorithm
+ * Schedules a job to the first server with sufficient resources to run the job, if none are found, check based on
+ * initial resource capacity. Servers are checked from the smallest to the largest server type.
+ *
+ * The servers are found using an index kept from one job to the next instead of checking every server, see
+ * ServerIndex, only the servers that changed since the last job are re-indexed.
+ */
+public class FirstFitPolicy implements SchedulingPolicy {
+
+    private Client client;
+    private final ServerIndex serverIndex = new ServerIndex();
+
+    @Override
+    public String name() {
+        return "ff";
+    }
+
+    @Override
+    public void onInit(Client client) {
+        this.client = client;
+    }
+
+    // Sorting the tables and syncing the index leave select() the same servers to choose from
+    @Override
+    public int predict(Job job) {
+        return select(job);
+    }
+
+    @Override
+    public int select(Job job) {
+
+        // Sort All Servers from smallest to largest, only new data from RESC needs to be sorted
+        client.sortAllServerInfo(client.allServerInfo);
+        client.sortAllServerInfo(client.initialAllServerInfo);
+
+        serverIndex.sync(client.allServerInfo, client.initialAllServerInfo);
+
+        // Return the first server with sufficient resources, otherwise the first active server (serverState = 3) with
+        // sufficient initial resources. If -1 is returned, no server exists that has sufficient resources to start the job
+        return serverIndex.firstFit(job);
+
+    }
+
+}
@@ -0,0 +1,35 @@
+/**
+ * Fitness
+ * Scores how well a job fits each server over all three resources, used by Best-Fit and Worst-Fit when a fitness other
+ * than cores is given with "-f". Without one they only compare cores (see calculateFitnessValue()) and use memory and
+ * disk as a yes/no check, so a job that needs most of a server's memory but few cores can be placed on a server with
+ * the fewest cores left and strand the rest of its cores.
+ *
+ * A score is computed for every server in one pass over the int arrays of a ServerTable, the loop has no branches or
+ * calls so the JIT can compile it to SIMD instructions. Each resource left over once the job is placed is divided by
+ * the largest amount of that resource any server has, so the three resources are compared on the same scale. A lower
+ * score is a tighter fit, scores of servers without sufficient resources are not used.
+ *
+ * Shares are fixed point ints, SHARE is a whole server. Converting the arrays to float is several times slower than
+ * the rest of the loop, and a leftover resource is never more than the largest server has or less than minus that, so
+ * a share always fits in an int.
+ *
+ *      DominantResourceFitness - the largest share of any resource left over ("-f dominant").
+ *      WeightedFitness         - the weighted sum of the shares left over ("-f weighted[:cores,memory,disk]").
+ */
+public interface Fitness {
+
+    // Fixed point value of the whole of a resource
+    int SHARE = 1 << 29;
+
+    /**
+     * Set the largest amount of each resource any server has, called before the first score().
+     */
+    void capacity(int cores, int memory, int disk);
+
+    /**
+     * Score the first size servers of the given resources for the job into scores.
+     */
+    void score(int size, int[] cores, int[] memory, int[] disk, Job job, int[] scores);
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Job
+ * The details of a job parsed once from a JOBN message so the scheduling algorithms can read them as ints.
+ *
+ *      JOBN submit_time (int) job_ID (int) estimated_runtime (int) #CPU_cores (int) memory (int) disk(int)
+ *      0    1                 2            3                       4                5            6
+ *
+ * A single Job is reused for every JOBN message received so that scheduling a job does not allocate.
+ */
+public class Job {
+
+    public int submitTime;
+    public int id;
+    public int estRuntime;
+    public int cores;
+    public int memory;
+    public int disk;
+
+    /**
+     * Read the details of a job from a JOBN message.
+     *  e.g. JOBN 83 0 1566 1 200 300
+     */
+    public void parse(MessageCodec message) {
+
+        message.skipToken();
+        submitTime = message.nextInt();
+        id         = message.nextInt();
+        estRuntime = message.nextInt();
+        cores      = message.nextInt();
+        memory     = message.nextInt();
+        disk       = message.nextInt();
+
+    }
+
+    /**
+     * Copy the details of another job, used to keep the jobs of a lookahead window after job is reused.
+     */
+    public void set(Job other) {
+
+        submitTime = other.submitTime;
+        id         = other.id;
+        estRuntime = other.estRuntime;
+        cores      = other.cores;
+        memory     = other.memory;
+        disk       = other.disk;
+
+    }
+
+}
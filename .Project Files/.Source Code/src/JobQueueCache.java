@@ -0,0 +1,463 @@
+import java.util.Arrays;
+
+/**
+ * Job Queue Cache
+ * Keeps the jobs queued on each server from the client's own scheduling decisions (SCHD) and the job completions sent by
+ * the server (JCPL), so the wait time of a server can be found without sending LSTJ and reading every job it is running.
+ *
+ * For each server the cache holds the number of jobs, the number of jobs in each wait time class (see waitClass()) and
+ * the estimated time at which all of its jobs will have completed, so every query takes O(1).
+ *
+ * Servers that do not send JCPL never report completions, so jobs that are well past their estimated completion are
+ * evicted as stale: a job is removed once the current time is more than its estimated runtime past its estimated
+ * completion, i.e. it is allowed to overrun its estimate by 100%.
+ *
+ * The entries of a server can be replaced by the jobs listed in an LSTJ response using validate(), jobs cached before
+ * the validation are then ignored when they complete or are evicted.
+ *
+ * The jobs of each server are also kept in a list with their resources and estimated completion, the server's
+ * timeline, so earliestStart() can find when a new job could start once enough of them have completed.
+ *
+ * The data of each job is kept in a JobStore, so the cache only grows with the number of jobs queued at once and not
+ * with the number of jobs of the session. Once the store is full a job that needs the record of a cached job evicts it.
+ */
+public class JobQueueCache {
+
+    // Wait time classes, see waitClass()
+    public static final int INSTANT   = 0;
+    public static final int SHORT     = 1;
+    public static final int MEDIUM    = 2;
+    public static final int LONG      = 3;
+    public static final int PERMANENT = 4;
+    private static final int CLASSES  = 5;
+
+    // Slot of each server is typeOffset[server type id] + server ID, so servers keep their slot when the table is sorted
+    private int[] typeOffset = new int[0];
+    private int slots = 0;
+
+    // Server data, by slot
+    private int[] jobCount = new int[0];
+    private int[] classCount = new int[0]; // slot * CLASSES + wait time class
+    private int[] completionTime = new int[0];
+    private int[] generation = new int[0];
+    private int[] firstJob = new int[0];  // first job of the server's timeline, -1 if it has none
+    private int[] lastStart = new int[0]; // latest estimated start of the server's jobs, jobs start in order
+
+    // Job data, by record of the job store. NEXT and PREVIOUS link the server's timeline by job ID, -1 at either end
+    // HEAP is the position of the job's entry in the evict heap
+    private static final int SLOT = 0, CLASS = 1, GENERATION = 2, HEAP = 3, END = 4, CORES = 5, MEMORY = 6, DISK = 7,
+            NEXT = 8, PREVIOUS = 9;
+    private JobStore jobs = new JobStore(10, JobStore.MAX_JOBS);
+
+    // Records of the jobs of a timeline ordered by completion, reused by earliestStart()
+    private int[] timeline = new int[16];
+
+    // Binary min-heap of {evict time, job ID} entries, one for each cached job, so it is no larger than the job store
+    private int[] evictTimes = new int[16];
+    private int[] evictJobs = new int[16];
+    private int evictCount = 0;
+
+    /**
+     * Assign a slot to every server of the table, must be called once the server table is known.
+     */
+    public void reset(ServerTable servers) {
+
+        // Highest server ID of each type
+        int[] typeSize = new int[servers.typeCount()];
+        for(int i = 0; i < servers.size; i++)
+            typeSize[servers.type[i]] = Math.max(typeSize[servers.type[i]], servers.id[i] + 1);
+
+        reset(typeSize);
+
+    }
+
+    /**
+     * Assign a slot to every server from the number of servers of each type, e.g. the limits of a system config.
+     * @param typeSize the number of servers of each server type id, servers of a type have IDs 0 to typeSize - 1.
+     */
+    public void reset(int[] typeSize) {
+
+        typeOffset = new int[typeSize.length];
+        slots = 0;
+        for(int t = 0; t < typeSize.length; t++) {
+            typeOffset[t] = slots;
+            slots += typeSize[t];
+        }
+
+        jobCount = new int[slots];
+        classCount = new int[slots * CLASSES];
+        completionTime = new int[slots];
+        generation = new int[slots];
+        firstJob = new int[slots];
+        lastStart = new int[slots];
+        Arrays.fill(firstJob, -1);
+
+        jobs = new JobStore(10, JobStore.MAX_JOBS);
+        evictCount = 0;
+
+    }
+
+    /**
+     * Is called once a job has been successfully scheduled on server i of the table.
+     * @param waits true if the server did not have the resources to start the job immediately.
+     * @param start the estimated start of the job, see earliestStart().
+     */
+    public void scheduled(ServerTable servers, int i, Job job, boolean waits, int start) {
+
+        int slot = slotOf(servers.type[i], servers.id[i]);
+        if(slot == -1)
+            return;
+
+        // The timeline uses the job's estimated start, but for the server's completion time a job that waits is
+        // assumed to start once every job before it has completed
+        int end = waits ? Math.max(completionTime[slot], job.submitTime) + job.estRuntime : start + job.estRuntime;
+        add(slot, job.id, job.estRuntime, start, end, job.cores, job.memory, job.disk);
+
+    }
+
+    /**
+     * Is called when a JCPL message is received for a job.
+     */
+    public void completed(int endTime, int jobID) {
+
+        int j = cached(jobID);
+        if(j == -1)
+            return;
+
+        int slot = jobs.get(j, SLOT);
+        remove(jobID);
+
+        // With no jobs left the server is free from the time the last one completed
+        if(jobCount[slot] == 0)
+            completionTime[slot] = endTime;
+
+    }
+
+    /**
+     * Evict the jobs that should have completed long before currentTime.
+     */
+    public void advance(int currentTime) {
+
+        while(evictCount > 0 && evictTimes[0] < currentTime)
+            remove(evictJobs[0]);
+
+    }
+
+    /**
+     * @return the largest wait time class of the jobs queued on server i, INSTANT if it has none.
+     */
+    public int waitClass(ServerTable servers, int i) {
+
+        int slot = slotOf(servers.type[i], servers.id[i]);
+        if(slot == -1)
+            return INSTANT;
+
+        for(int c = PERMANENT; c > INSTANT; c--) {
+            if(classCount[slot * CLASSES + c] > 0)
+                return c;
+        }
+
+        return INSTANT;
+
+    }
+
+    /**
+     * @return the estimated time at which every job queued on server i will have completed.
+     */
+    public int completionTime(ServerTable servers, int i) {
+
+        int slot = slotOf(servers.type[i], servers.id[i]);
+        return slot == -1 ? 0 : completionTime[slot];
+
+    }
+
+    /**
+     * @return the number of jobs queued on server i.
+     */
+    public int jobCount(ServerTable servers, int i) {
+
+        int slot = slotOf(servers.type[i], servers.id[i]);
+        return slot == -1 ? 0 : jobCount[slot];
+
+    }
+
+    /**
+     * Find when a job could start on server i from the server's timeline. Jobs start in the order they were scheduled,
+     * so the job can not start before the last job scheduled on the server, and then starts once enough of the jobs
+     * before it have completed to free the resources it needs.
+     * @param initialServers the initial resource capacity of each server.
+     * @param ready the time the server is ready to run jobs, e.g. once it has booted. The server is known not to have
+     *              the resources to start the job at this time, even if the timeline says it does, e.g. because it is
+     *              running jobs the cache does not know about.
+     */
+    public int earliestStart(ServerTable initialServers, int i, Job job, int ready) {
+
+        int slot = slotOf(initialServers.type[i], initialServers.id[i]);
+        if(slot == -1)
+            return ready;
+
+        int start = Math.max(ready, lastStart[slot]);
+
+        // Jobs that hold resources at the start, ordered by completion
+        int count = 0;
+        int cores = initialServers.cores[i], memory = initialServers.memory[i], disk = initialServers.disk[i];
+
+        // The timeline holds the record of each job
+        for(int j = jobs.find(firstJob[slot]); j != -1; j = jobs.find(jobs.get(j, NEXT))) {
+
+            if(jobs.get(j, END) <= start)
+                continue;
+
+            cores -= jobs.get(j, CORES);
+            memory -= jobs.get(j, MEMORY);
+            disk -= jobs.get(j, DISK);
+
+            if(count == timeline.length)
+                timeline = Arrays.copyOf(timeline, count * 2);
+
+            // Insertion sort, servers only have a few jobs
+            int k = count++;
+            for(; k > 0 && jobs.get(timeline[k - 1], END) > jobs.get(j, END); k--)
+                timeline[k] = timeline[k - 1];
+            timeline[k] = j;
+
+        }
+
+        if(cores >= job.cores && memory >= job.memory && disk >= job.disk && start > ready)
+            return start;
+
+        for(int k = 0; k < count; k++) {
+
+            int j = timeline[k];
+            cores += jobs.get(j, CORES);
+            memory += jobs.get(j, MEMORY);
+            disk += jobs.get(j, DISK);
+
+            if(cores >= job.cores && memory >= job.memory && disk >= job.disk)
+                return jobs.get(j, END);
+
+        }
+
+        // The jobs holding the resources are not known, assume the job starts once they could have completed
+        return count > 0 ? jobs.get(timeline[count - 1], END) : start + Math.max(1, job.estRuntime);
+
+    }
+
+    /**
+     * Start replacing the jobs of server i with the jobs listed in an LSTJ response, each job is then passed to
+     * validated().
+     */
+    public void validate(ServerTable servers, int i) {
+
+        int slot = slotOf(servers.type[i], servers.id[i]);
+        if(slot == -1)
+            return;
+
+        generation[slot]++;
+        while(firstJob[slot] != -1)
+            remove(firstJob[slot]);
+
+        jobCount[slot] = 0;
+        Arrays.fill(classCount, slot * CLASSES, slot * CLASSES + CLASSES, 0);
+        completionTime[slot] = 0;
+        lastStart[slot] = 0;
+
+    }
+
+    /**
+     * Add a job listed in an LSTJ response for server i, must be called after validate().
+     */
+    public void validated(ServerTable servers, int i, int jobID, int startTime, int estRuntime, int cores, int memory,
+                          int disk) {
+
+        int slot = slotOf(servers.type[i], servers.id[i]);
+        if(slot == -1)
+            return;
+
+        // A job that has not started yet starts once the jobs before it have completed
+        int start = startTime >= 0 ? startTime : completionTime[slot];
+        add(slot, jobID, estRuntime, start, start + estRuntime, cores, memory, disk);
+
+    }
+
+    /**
+     * Jobs are classified as one of the following:
+     *
+     *      - 0     INSTANT       1SEC        till        10SECS
+     *      - 1     SHORT         11SECS      till        5MINS
+     *      - 2     MEDIUM        5MINS       till        1HR
+     *      - 3     LONG          1HR         till        12HRS
+     *      - 4     PERMANENT     12HRS       till        24855 Days
+     *
+     * If -1 is returned the job has a runtime of nothing, it doesn't exist.
+     */
+    public static int waitClass(int runtime) {
+
+        if(runtime >= 0 && runtime <= 10)
+            return INSTANT;
+
+        if(runtime >= 11 && runtime <= 300)
+            return SHORT;
+
+        if(runtime >= 301 && runtime <= 1800)
+            return MEDIUM;
+
+        if(runtime >= 1801 && runtime <= 43200)
+            return LONG;
+
+        if(runtime >= 43201)
+            return PERMANENT;
+
+        return -1;
+
+    }
+
+    // end is the estimated completion the job gives the server, the timeline uses start + estRuntime
+    private void add(int slot, int jobID, int estRuntime, int start, int end, int cores, int memory, int disk) {
+
+        // A job scheduled again replaces its old entry
+        if(cached(jobID) != -1)
+            remove(jobID);
+
+        // Once the store is full the job cached in the record is evicted
+        int j = jobs.claim(jobID);
+        if(jobs.isLive(j))
+            remove(jobs.jobID(j));
+
+        int c = Math.max(INSTANT, waitClass(estRuntime));
+        jobs.hold(j, jobID);
+        jobs.set(j, SLOT, slot);
+        jobs.set(j, CLASS, c);
+        jobs.set(j, GENERATION, generation[slot]);
+        jobs.set(j, END, start + Math.max(0, estRuntime));
+        jobs.set(j, CORES, cores);
+        jobs.set(j, MEMORY, memory);
+        jobs.set(j, DISK, disk);
+
+        // Add to the front of the server's timeline
+        jobs.set(j, PREVIOUS, -1);
+        jobs.set(j, NEXT, firstJob[slot]);
+        if(firstJob[slot] != -1)
+            jobs.set(jobs.find(firstJob[slot]), PREVIOUS, jobID);
+        firstJob[slot] = jobID;
+
+        jobCount[slot]++;
+        classCount[slot * CLASSES + c]++;
+        completionTime[slot] = Math.max(completionTime[slot], end);
+        lastStart[slot] = Math.max(lastStart[slot], start);
+
+        addEvict(end + Math.max(0, estRuntime), jobID);
+
+    }
+
+    // The job must be in the store
+    private void remove(int jobID) {
+
+        int j = jobs.find(jobID);
+        int slot = jobs.get(j, SLOT);
+        int next = jobs.get(j, NEXT), previous = jobs.get(j, PREVIOUS);
+        jobCount[slot]--;
+        classCount[slot * CLASSES + jobs.get(j, CLASS)]--;
+        removeEvict(jobs.get(j, HEAP));
+        jobs.release(j);
+
+        if(previous != -1)
+            jobs.set(jobs.find(previous), NEXT, next);
+        else
+            firstJob[slot] = next;
+
+        if(next != -1)
+            jobs.set(jobs.find(next), PREVIOUS, previous);
+
+    }
+
+    // @return the record of the job if it is cached and its server has not been validated since it was added, else -1
+    private int cached(int jobID) {
+
+        int j = jobs.find(jobID);
+        return j != -1 && jobs.get(j, GENERATION) == generation[jobs.get(j, SLOT)] ? j : -1;
+
+    }
+
+    private int slotOf(int serverType, int serverID) {
+
+        if(serverType >= typeOffset.length || serverID < 0)
+            return -1;
+
+        int slot = typeOffset[serverType] + serverID;
+        int end = serverType + 1 < typeOffset.length ? typeOffset[serverType + 1] : slots;
+
+        return slot < end ? slot : -1;
+
+    }
+
+    // Evict heap, the position of each entry is kept in its job's record
+
+    private void addEvict(int time, int jobID) {
+
+        if(evictCount == evictTimes.length) {
+            evictTimes = Arrays.copyOf(evictTimes, evictTimes.length * 2);
+            evictJobs = Arrays.copyOf(evictJobs, evictJobs.length * 2);
+        }
+
+        siftUp(evictCount++, time, jobID);
+
+    }
+
+    // Remove the entry at position i, the last entry is moved into its place
+    private void removeEvict(int i) {
+
+        evictCount--;
+        if(i == evictCount)
+            return;
+
+        int time = evictTimes[evictCount];
+        int jobID = evictJobs[evictCount];
+
+        if(i > 0 && evictTimes[(i - 1) / 2] > time)
+            siftUp(i, time, jobID);
+        else
+            siftDown(i, time, jobID);
+
+    }
+
+    private void siftUp(int i, int time, int jobID) {
+
+        while(i > 0 && evictTimes[(i - 1) / 2] > time) {
+            place(i, evictTimes[(i - 1) / 2], evictJobs[(i - 1) / 2]);
+            i = (i - 1) / 2;
+        }
+
+        place(i, time, jobID);
+
+    }
+
+    private void siftDown(int i, int time, int jobID) {
+
+        while(i * 2 + 1 < evictCount) {
+
+            int child = i * 2 + 1;
+            if(child + 1 < evictCount && evictTimes[child + 1] < evictTimes[child])
+                child++;
+
+            if(evictTimes[child] >= time)
+                break;
+
+            place(i, evictTimes[child], evictJobs[child]);
+            i = child;
+
+        }
+
+        place(i, time, jobID);
+
+    }
+
+    private void place(int i, int time, int jobID) {
+
+        evictTimes[i] = time;
+        evictJobs[i] = jobID;
+        jobs.set(jobs.find(jobID), HEAP, i);
+
+    }
+
+}
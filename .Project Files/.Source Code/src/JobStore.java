@@ -0,0 +1,121 @@
+/**
+ * Job Store
+ * Holds a record of each live job in a single int array, so a job costs a few ints and no objects, and the heap used
+ * does not grow with the length of the simulation. Each record is the job ID (-1 when the record is free) followed by
+ * the fields of the store's user, which are read and written by index with get() and set().
+ *
+ * Records are found by job ID: job IDs are handed out in order, so the record of a job is kept at job_ID modulo the
+ * capacity, which only has to cover the IDs of the jobs that are still live. The capacity is doubled when a new job
+ * needs the record of a live job, up to the maximum, after which claim() returns the record of the live job and the
+ * user evicts it. A server that does not send JCPL never completes a job, its jobs are evicted once the maximum is
+ * reached.
+ */
+public class JobStore {
+
+    // Most jobs kept at once by the stores of the client, see ResourceModel and JobQueueCache
+    public static final int MAX_JOBS = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int stride;
+    private final int maxCapacity;
+    private int[] records;
+    private int mask;
+
+    /**
+     * @param fields - the number of ints of each record after the job ID.
+     * @param maxCapacity - the most jobs kept at once, rounded up to a power of two.
+     */
+    public JobStore(int fields, int maxCapacity) {
+
+        this.stride = fields + 1;
+        this.maxCapacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, maxCapacity) - 1) << 1;
+        records = empty(INITIAL_CAPACITY);
+        mask = INITIAL_CAPACITY - 1;
+
+    }
+
+    /**
+     * Find the record for a new job, growing the store while the record holds another live job.
+     * @return the record for the job, it still holds a live job (see isLive()) if the store is full, which the caller
+     * evicts before hold().
+     */
+    public int claim(int jobID) {
+
+        while(isLive(jobID & mask) && jobID(jobID & mask) != jobID && capacity() < maxCapacity)
+            grow();
+
+        return jobID & mask;
+
+    }
+
+    /**
+     * Mark record r as holding the job, its fields keep their old values until set().
+     */
+    public void hold(int r, int jobID) {
+        records[r * stride] = jobID;
+    }
+
+    /**
+     * Free record r, e.g. once its job has completed.
+     */
+    public void release(int r) {
+        records[r * stride] = -1;
+    }
+
+    /**
+     * @return the record of a job that is still live, -1 if it was released, evicted or is not known.
+     */
+    public int find(int jobID) {
+
+        if(jobID < 0)
+            return -1;
+
+        int r = jobID & mask;
+        return jobID(r) == jobID ? r : -1;
+
+    }
+
+    public boolean isLive(int r)                    { return records[r * stride] != -1; }
+    public int jobID(int r)                         { return records[r * stride]; }
+    public int get(int r, int field)                { return records[r * stride + 1 + field]; }
+    public void set(int r, int field, int value)    { records[r * stride + 1 + field] = value; }
+
+    /**
+     * @return the number of records, records 0 to capacity() - 1 can be iterated with isLive().
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // Double the capacity, records in different places stay in different places
+    private void grow() {
+
+        int capacity = capacity() * 2;
+        int[] old = records;
+
+        records = empty(capacity);
+        mask = capacity - 1;
+
+        for(int base = 0; base < old.length; base += stride) {
+
+            int jobID = old[base];
+            if(jobID != -1)
+                System.arraycopy(old, base, records, (jobID & mask) * stride, stride);
+
+        }
+
+    }
+
+    // Every record free
+    private int[] empty(int capacity) {
+
+        int[] empty = new int[capacity * stride];
+        for(int base = 0; base < empty.length; base += stride)
+            empty[base] = -1;
+
+        return empty;
+
+    }
+
+}
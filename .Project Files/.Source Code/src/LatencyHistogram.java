@@ -0,0 +1,102 @@
+/**
+ * Latency Histogram
+ * Counts recorded values in log-linear buckets in the same way as HdrHistogram, so a value is recorded in O(1) without
+ * allocating and any percentile can be found to within 1% of the recorded value.
+ *
+ * Values 0 to 255 have a bucket each. Larger values share a bucket with the values that have the same 8 most
+ * significant bits, e.g. 1000 to 1003 are counted in the same bucket, so every power of two range has 128 buckets and
+ * a bucket is never wider than 1/128 of its values.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    // Enough buckets for any positive long
+    private final long[] counts = new long[SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS];
+
+    private long count = 0;
+    private long total = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * Record a value, negative values are recorded as 0.
+     */
+    public void record(long value) {
+
+        value = Math.max(0, value);
+
+        counts[indexOf(value)]++;
+        count++;
+        total += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @return the value that the given percentage of recorded values are less than or equal to, the largest value of
+     * its bucket is returned but never more than the largest recorded value.
+     */
+    public long percentile(double percentile) {
+
+        if(count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for(int i = 0; i < counts.length; i++) {
+
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.min(max, highestValueAt(i));
+
+        }
+
+        return max;
+
+    }
+
+    private static int indexOf(long value) {
+
+        if(value < SUB_BUCKETS)
+            return (int) value;
+
+        // Shift the value so its 8 most significant bits are left, 128 to 255
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+
+    }
+
+    private static long highestValueAt(int index) {
+
+        if(index < SUB_BUCKETS)
+            return index;
+
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+        return (subBucket << shift) + (1L << shift) - 1;
+
+    }
+
+}
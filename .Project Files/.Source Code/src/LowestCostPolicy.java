@@ -0,0 +1,31 @@
+/**
+ * Cost
+ * Schedules a job to the server that runs it for the lowest rental cost plus the cost of its delay, see
+ * Client.findLowestCost(). The search reads the resource model and job queues the client keeps for every policy.
+ */
+public class LowestCostPolicy implements SchedulingPolicy {
+
+    private Client client;
+
+    @Override
+    public String name() {
+        return "cost";
+    }
+
+    @Override
+    public void onInit(Client client) {
+        this.client = client;
+    }
+
+    // Client.findLowestCost() keeps nothing from one search to the next
+    @Override
+    public int predict(Job job) {
+        return select(job);
+    }
+
+    @Override
+    public int select(Job job) {
+        return client.findLowestCost(job);
+    }
+
+}
@@ -0,0 +1,332 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Message Codec
+ * Encodes commands into a reusable byte buffer and reads replies into another reusable byte buffer so that messages
+ * can be sent and received without creating Strings or splitting them.
+ *
+ * A command is built with append() and written with a single call to send().
+ *  e.g. codec.append("SCHD ").append(jobID).append(' ').append(serverType).append(' ').append(serverID).send();
+ *
+ * A reply is read with readLine() and its words are then read in order from the buffer.
+ *  e.g. codec.readLine();          // JOBN 83 0 1566 1 200 300
+ *       codec.skipToken();         // JOBN
+ *       int submitTime = codec.nextInt();
+ *
+ * The bytes are moved by a Transport, commands written by send() may be held by the transport until flush() is called.
+ *
+ * Messages only ever contain ASCII characters, so a char is written as a single byte.
+ */
+public class MessageCodec {
+
+    private final Transport transport;
+
+    // Command being built by append()
+    private byte[] outBuffer = new byte[64];
+    private int outLength = 0;
+
+    // Bytes read from the server, the current line is inBuffer[lineStart, lineEnd)
+    private byte[] inBuffer = new byte[8192];
+    private int inStart = 0;
+    private int inEnd = 0;
+    private int lineStart = 0;
+    private int lineEnd = 0;
+
+    // Position of the next word in the current line
+    private int position = 0;
+
+    // Bytes written and read through the transport
+    private long bytesSent = 0;
+    private long bytesReceived = 0;
+
+    public MessageCodec(Transport transport) {
+        this.transport = transport;
+    }
+
+    // Encoding
+
+    public MessageCodec append(String text) {
+
+        ensureOutCapacity(outLength + text.length());
+        for(int i = 0; i < text.length(); i++)
+            outBuffer[outLength++] = (byte) text.charAt(i);
+
+        return this;
+
+    }
+
+    public MessageCodec append(char c) {
+
+        ensureOutCapacity(outLength + 1);
+        outBuffer[outLength++] = (byte) c;
+
+        return this;
+
+    }
+
+    public MessageCodec append(int value) {
+
+        // -value can not be represented as an int
+        if(value == Integer.MIN_VALUE)
+            return append(Integer.toString(value));
+
+        // Enough room for the digits of any int and its sign
+        ensureOutCapacity(outLength + 11);
+
+        if(value < 0) {
+            outBuffer[outLength++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for(int temp = value / 10; temp > 0; temp /= 10)
+            digits++;
+
+        for(int i = outLength + digits - 1; i >= outLength; i--) {
+            outBuffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        outLength += digits;
+        return this;
+
+    }
+
+    /**
+     * Write the command built by append() followed by a newline in a single write, the buffer is then cleared for the
+     * next command.
+     */
+    public void send() throws IOException {
+
+        append('\n');
+        transport.write(outBuffer, 0, outLength);
+        bytesSent += outLength;
+        outLength = 0;
+
+    }
+
+    /**
+     * Write raw bytes, e.g. a batch of acknowledgements, without touching the command being built.
+     */
+    public void sendRaw(byte[] bytes, int length) throws IOException {
+        transport.write(bytes, 0, length);
+        bytesSent += length;
+    }
+
+    /**
+     * Make sure everything sent so far has reached the server, called before waiting for a reply.
+     */
+    public void flush() throws IOException {
+        transport.flush();
+    }
+
+    public void close() throws IOException {
+        transport.close();
+    }
+
+    public long bytesSent() {
+        return bytesSent;
+    }
+
+    public long bytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Log the command built by append() so far.
+     */
+    public void traceCommand(TraceLog log) {
+        log.sent(outBuffer, 0, outLength);
+    }
+
+    /**
+     * Log the current line.
+     */
+    public void traceLine(TraceLog log) {
+        log.received(inBuffer, lineStart, lineEnd - lineStart);
+    }
+
+    /**
+     * @return the command built by append() so far, used for logging.
+     */
+    public String commandToString() {
+        return new String(outBuffer, 0, outLength, StandardCharsets.US_ASCII);
+    }
+
+    // Decoding
+
+    /**
+     * Read the next line sent by the server into the buffer, the newline is not part of the line.
+     * @return false if the connection was closed before a line was read.
+     */
+    public boolean readLine() throws IOException {
+
+        int newline = indexOfNewline(inStart);
+
+        while(newline == -1) {
+
+            // Move the incomplete line to the start of the buffer, or grow the buffer if it holds one very long line
+            if(inStart > 0) {
+                System.arraycopy(inBuffer, inStart, inBuffer, 0, inEnd - inStart);
+                inEnd -= inStart;
+                inStart = 0;
+            } else if(inEnd == inBuffer.length) {
+                inBuffer = Arrays.copyOf(inBuffer, inBuffer.length * 2);
+            }
+
+            int searchFrom = inEnd;
+            int read = transport.read(inBuffer, inEnd, inBuffer.length - inEnd);
+            if(read == -1) {
+                lineStart = lineEnd = position = inStart = inEnd = 0;
+                return false;
+            }
+
+            inEnd += read;
+            bytesReceived += read;
+            newline = indexOfNewline(searchFrom);
+
+        }
+
+        lineStart = inStart;
+        lineEnd = newline;
+        position = lineStart;
+        inStart = newline + 1;
+
+        // A reply ending in "\r\n" is treated the same as one ending in "\n"
+        if(lineEnd > lineStart && inBuffer[lineEnd - 1] == '\r')
+            lineEnd--;
+
+        return true;
+
+    }
+
+    /**
+     * @return true if the current line is exactly the given text.
+     */
+    public boolean lineEquals(String text) {
+        return lineEnd - lineStart == text.length() && lineStartsWith(text);
+    }
+
+    /**
+     * @return true if the current line starts with the given text.
+     */
+    public boolean lineStartsWith(String text) {
+
+        if(lineEnd - lineStart < text.length())
+            return false;
+
+        for(int i = 0; i < text.length(); i++) {
+            if(inBuffer[lineStart + i] != text.charAt(i))
+                return false;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * @return true if there is another word in the current line.
+     */
+    public boolean hasNextToken() {
+        return position < lineEnd;
+    }
+
+    /**
+     * Move past the next word in the current line.
+     */
+    public void skipToken() {
+        position = tokenEnd() + 1;
+    }
+
+    /**
+     * @return the next word of the current line parsed as an int.
+     */
+    public int nextInt() {
+
+        int end = tokenEnd();
+
+        boolean negative = false;
+        int i = position;
+        if(i < end && inBuffer[i] == '-') {
+            negative = true;
+            i++;
+        }
+
+        int value = 0;
+        for(; i < end; i++)
+            value = value * 10 + (inBuffer[i] - '0');
+
+        position = end + 1;
+        return negative ? -value : value;
+
+    }
+
+    /**
+     * @return true if the next word of the current line is the given text, the word is not consumed.
+     */
+    public boolean tokenEquals(String text) {
+
+        int end = tokenEnd();
+        if(end - position != text.length())
+            return false;
+
+        for(int i = 0; i < text.length(); i++) {
+            if(inBuffer[position + i] != text.charAt(i))
+                return false;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * @return the next word of the current line as a String, only used when a new String is needed anyway.
+     */
+    public String nextToken() {
+
+        int end = tokenEnd();
+        String token = new String(inBuffer, position, end - position, StandardCharsets.US_ASCII);
+        position = end + 1;
+
+        return token;
+
+    }
+
+    /**
+     * @return the current line as a String, used for logging and the commands that still work on Strings.
+     */
+    public String lineToString() {
+        return new String(inBuffer, lineStart, lineEnd - lineStart, StandardCharsets.US_ASCII);
+    }
+
+    private int tokenEnd() {
+
+        int end = position;
+        while(end < lineEnd && inBuffer[end] != ' ')
+            end++;
+
+        return end;
+
+    }
+
+    private int indexOfNewline(int from) {
+
+        for(int i = from; i < inEnd; i++) {
+            if(inBuffer[i] == '\n')
+                return i;
+        }
+
+        return -1;
+
+    }
+
+    private void ensureOutCapacity(int capacity) {
+
+        if(capacity > outBuffer.length)
+            outBuffer = Arrays.copyOf(outBuffer, Math.max(capacity, outBuffer.length * 2));
+
+    }
+
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+
+/**
+ * Query Planner
+ * Chooses the narrowest RESC query that brings the servers a job may be scheduled to up to date, instead of reading
+ * every server with RESC All each time the resource model asks for a refresh.
+ *
+ * Every algorithm only chooses a server with the initial resources to run the job, so the servers of a type whose
+ * largest server has fewer cores, memory or disk than the job are never read for it. The planner keeps a catalogue of
+ * the types from the first RESC All (number of servers and largest initial resources) and plans a RESC Type for each
+ * type that can run the job. The responses are merged into allServerInfo, the other servers keep the values of the
+ * resource model (see Client.RESCTypes()).
+ *
+ * When the resource model asks for a refresh every type is marked due, a type is no longer due once its servers have
+ * been read. A type that was not needed for the job stays due, and is read before the next job that can run on it,
+ * so no decision is made from servers older than the ones a RESC All would have given.
+ *
+ * Each query costs a round trip and a DATA header and "." as well as its records, so RESC All is used instead if it
+ * reads no more than the queries planned, e.g. when the job fits on every type.
+ */
+public class QueryPlanner {
+
+    // Cost of a query in records, the command and its DATA header and terminating "."
+    private static final int QUERY_COST = 2;
+
+    private final boolean targeted;
+
+    // Catalogue of the server types, by type id
+    private int servers = 0;
+    private int[] typeServers = new int[0];
+    private int[] typeCores = new int[0];
+    private int[] typeMemory = new int[0];
+    private int[] typeDisk = new int[0];
+
+    // Types whose servers have not been read since the resource model asked for a refresh, and those planned
+    private boolean[] due = new boolean[0];
+    private boolean[] planned = new boolean[0];
+    private int plannedTypes = 0;
+    private int plannedServers = 0;
+
+    /**
+     * @param targeted - false to always plan a RESC All ("-q all").
+     */
+    public QueryPlanner(boolean targeted) {
+        this.targeted = targeted;
+    }
+
+    /**
+     * Build the catalogue of server types from the servers of the first RESC All, nothing is due afterwards.
+     */
+    public void catalogue(ServerTable initialServers) {
+
+        int typeCount = initialServers.typeCount();
+        servers = initialServers.size;
+        typeServers = new int[typeCount];
+        typeCores = new int[typeCount];
+        typeMemory = new int[typeCount];
+        typeDisk = new int[typeCount];
+        due = new boolean[typeCount];
+        planned = new boolean[typeCount];
+
+        for(int i = 0; i < initialServers.size; i++) {
+
+            int serverType = initialServers.type[i];
+            typeServers[serverType]++;
+            typeCores[serverType] = Math.max(typeCores[serverType], initialServers.cores[i]);
+            typeMemory[serverType] = Math.max(typeMemory[serverType], initialServers.memory[i]);
+            typeDisk[serverType] = Math.max(typeDisk[serverType], initialServers.disk[i]);
+
+        }
+
+        clear();
+
+    }
+
+    /**
+     * Mark every server type due, is called when the resource model asks for a refresh.
+     */
+    public void expire() {
+        Arrays.fill(due, true);
+    }
+
+    /**
+     * Forget the types planned so far.
+     */
+    public void clear() {
+
+        Arrays.fill(planned, false);
+        plannedTypes = 0;
+        plannedServers = 0;
+
+    }
+
+    /**
+     * Plan the types that are due and can run the job, the types planned for earlier jobs are kept until clear().
+     * @return true if any type has been planned.
+     */
+    public boolean plan(Job job) {
+
+        for(int t = 0; t < due.length; t++) {
+
+            if(!due[t] || planned[t] || typeCores[t] < job.cores || typeMemory[t] < job.memory || typeDisk[t] < job.disk)
+                continue;
+
+            planned[t] = true;
+            plannedTypes++;
+            plannedServers += typeServers[t];
+
+        }
+
+        return plannedTypes > 0;
+
+    }
+
+    /**
+     * @return true if the planned servers are read with a RESC All rather than a RESC Type for each planned type, e.g.
+     * when nothing is planned or every type is.
+     */
+    public boolean requestsAll() {
+        return !targeted || plannedTypes == 0 || QUERY_COST + servers <= plannedTypes * QUERY_COST + plannedServers;
+    }
+
+    /**
+     * @return true if the servers of the type are planned.
+     */
+    public boolean isPlanned(int serverType) {
+        return serverType < planned.length && planned[serverType];
+    }
+
+    /**
+     * @return the planned types by type id, the array is reused.
+     */
+    public boolean[] planned() {
+        return planned;
+    }
+
+    /**
+     * @return the number of servers of the type, -1 if it is not in the catalogue.
+     */
+    public int servers(int serverType) {
+        return serverType < typeServers.length ? typeServers[serverType] : -1;
+    }
+
+    /**
+     * Is called once the planned servers have been read, every type is up to date after a RESC All.
+     */
+    public void requested(boolean all) {
+
+        for(int t = 0; t < due.length; t++) {
+            if(all || planned[t])
+                due[t] = false;
+        }
+
+        clear();
+
+    }
+
+}
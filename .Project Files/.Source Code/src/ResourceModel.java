@@ -0,0 +1,424 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Resource Model
+ * Keeps the client's copy of the server table up to date between RESC requests so that a RESC All is not needed
+ * before every job.
+ *
+ *  - When a job is scheduled (SCHD) its cores, memory and disk are subtracted from the server it was sent to. A
+ *    server that has not finished booting may only take them once the job starts (see reservesWhileBooting), then
+ *    the job's start is recorded and they are left to the refresh at boot completion.
+ *  - When a job completes (JCPL) its resources are added back to the server.
+ *  - When a server fails (RESF) its jobs are forgotten and it is given no resources, so no algorithm chooses it.
+ *  - When a server recovers (RESR) it is inactive with all of its initial resources.
+ *  - The available time the model gives an idle or recovered server is from the time its type was last read, as the
+ *    server reports it from the current time (see ServerTable.relativeAvailTime()).
+ *
+ * The server table is only requested again when the refresh interval (number of jobs) has been reached or when the
+ * model can no longer predict the state of the servers (drift), this happens when:
+ *
+ *  - A job had to wait because the server did not have enough resources available, or because another of our jobs
+ *    is already waiting on the server (jobs start in the order they were scheduled).
+ *  - A job completed on a server that one of our jobs is waiting on.
+ *  - A job was sent to a booting server before the model has learnt whether the server takes its resources then.
+ *  - A server that was booted by one of our jobs has finished booting and changed state.
+ *  - A JCPL was received for a job the model does not know about or for a job that had to wait. The jobs are kept in
+ *    a JobStore of at most JobStore.MAX_JOBS live jobs, so a job scheduled long before the others may have been
+ *    forgotten.
+ *
+ * Servers that do not send JCPL messages never report job completions, in that case only the refresh interval keeps
+ * the model in sync. A refresh interval of 1 requests the server table before every job.
+ */
+public class ResourceModel {
+
+    // Number of jobs that may be scheduled before the server table is requested again
+    private int refreshInterval;
+    private int jobsSinceRefresh = 0;
+
+    // Set when the model is known to be different to the server's state
+    private boolean drift = true;
+
+    // Jobs scheduled by the client that have not completed: the server they were sent to, whether they had to wait
+    // and their resources
+    private static final int SERVER_TYPE = 0, SERVER_ID = 1, WAITED = 2, CORES = 3, MEMORY = 4, DISK = 5;
+    private final JobStore scheduledJobs = new JobStore(6, JobStore.MAX_JOBS);
+
+    // Times at which the servers booted for our jobs become available
+    private final PriorityQueue<Integer> bootCompletionTimes = new PriorityQueue<>();
+
+    // By server slot (see ServerTable.slot()): the boot completion time of a server booted for our jobs, -1 once it
+    // has been read after booting, its cores before the first job and the resources of the jobs sent to it while
+    // booting
+    private int[] bootCompletion = new int[0];
+    private int[] bootCores = new int[0];
+    private int[] pendingCores = new int[0];
+    private int[] pendingMemory = new int[0];
+    private int[] pendingDisk = new int[0];
+
+    // Number of our jobs that had to wait on each server, a completion on the server may start one of them
+    private int[] waiting = new int[0];
+
+    // Whether the server subtracts the resources of a job on a booting server when it is scheduled, as ds-server
+    // does, or only once the job starts. Learnt from the first refresh that reads a server booting for our jobs, until
+    // then a job sent to a booting server is a drift
+    private boolean reservesWhileBooting = true;
+    private boolean reservationKnown = false;
+
+    // Set by the first JCPL, a server that does not send JCPL never tells the model which jobs have completed
+    private boolean completionsReported = false;
+
+    // Boot up time of each server type, learnt from the available time of inactive servers
+    private int[] bootupTime = new int[0];
+
+    public ResourceModel(int refreshInterval) {
+        this.refreshInterval = Math.max(1, refreshInterval);
+    }
+
+    /**
+     * Set the boot up time of a server type before it has been learnt from the server table, e.g. from a system config.
+     */
+    public void bootupTime(int serverType, int time) {
+
+        if(bootupTime.length <= serverType)
+            bootupTime = Arrays.copyOf(bootupTime, serverType + 1);
+
+        bootupTime[serverType] = time;
+
+    }
+
+    /**
+     * @return the boot up time of a server type, 0 if it is not known yet.
+     */
+    public int bootupTime(int serverType) {
+        return serverType < bootupTime.length ? bootupTime[serverType] : 0;
+    }
+
+    /**
+     * Change the number of jobs that may be scheduled before the server table is requested again, e.g. as adapted by a
+     * DriftMonitor.
+     */
+    public void refreshInterval(int interval) {
+        refreshInterval = Math.max(1, interval);
+    }
+
+    /**
+     * @return true if the server table must be requested again before the job submitted at currentTime is scheduled.
+     */
+    public boolean needsRefresh(int currentTime) {
+        return jobsSinceRefresh >= refreshInterval || hasDrifted(currentTime);
+    }
+
+    /**
+     * @return true if the model is known to be different to the server's state at currentTime, regardless of the
+     * refresh interval.
+     */
+    public boolean hasDrifted(int currentTime) {
+
+        if(drift)
+            return true;
+
+        Integer nextBootCompletion = bootCompletionTimes.peek();
+        return nextBootCompletion != null && nextBootCompletion <= currentTime;
+
+    }
+
+    /**
+     * @return true once a JCPL has been received, until then the model can not know when the resources of a job are
+     * given back.
+     */
+    public boolean completionsReported() {
+        return completionsReported;
+    }
+
+    /**
+     * Is called after the server table has been refreshed by a RESC All at currentTime.
+     */
+    public void refreshed(ServerTable servers, int currentTime) {
+        refreshed(servers, currentTime, null);
+    }
+
+    /**
+     * Is called after the servers of the given types (by type id) have been refreshed by RESC Type at currentTime, the
+     * servers of the other types keep the values predicted by the model. Every server is refreshed if types is null.
+     */
+    public void refreshed(ServerTable servers, int currentTime, boolean[] types) {
+
+        jobsSinceRefresh = 0;
+        drift = false;
+        servers.readAt(currentTime, types);
+
+        // The state of servers that finished booting is now known, or is read before they are used (see QueryPlanner)
+        while(!bootCompletionTimes.isEmpty() && bootCompletionTimes.peek() <= currentTime)
+            bootCompletionTimes.poll();
+
+        // An inactive server is available once it has booted, available_time = current time + boot up time
+        if(bootupTime.length < servers.typeCount())
+            bootupTime = Arrays.copyOf(bootupTime, servers.typeCount());
+
+        if(bootCompletion.length < servers.slotCount())
+            ensureServers(servers.slotCount());
+
+        for(int i = 0; i < servers.size; i++) {
+
+            int serverType = servers.type[i];
+            if(types != null && (serverType >= types.length || !types[serverType]))
+                continue;
+
+            // No job waits on a server that has none, the count can not be off for longer than the server is busy
+            int slot = servers.slot(i);
+            if(slot != -1 && servers.state[i] != ServerTable.BOOTING && servers.state[i] != ServerTable.ACTIVE)
+                waiting[slot] = 0;
+
+            // A server booting for our jobs tells whether it has taken their resources yet
+            if(slot != -1 && bootCompletion[slot] != -1) {
+                if(servers.state[i] == ServerTable.BOOTING) {
+                    reservesWhileBooting = servers.cores[i] < bootCores[slot];
+                    reservationKnown = true;
+                } else
+                    booted(slot);
+            }
+
+            if(servers.state[i] == ServerTable.INACTIVE)
+                bootupTime[serverType] = servers.availTime[i] - currentTime;
+            else if(servers.state[i] == ServerTable.UNAVAILABLE)
+                removeResources(servers, i);
+
+        }
+
+    }
+
+    /**
+     * Is called once a job has been successfully scheduled on a server, the job's resources are subtracted from the
+     * server in the same way the server reports them in a RESC response.
+     */
+    public void scheduled(ServerTable servers, int server, Job job) {
+
+        jobsSinceRefresh++;
+        int slot = servers.slot(server);
+
+        // A server that has not taken the resources of the jobs sent to it while booting still has to fit them
+        boolean deferred = !reservesWhileBooting && bootCompletion[slot] != -1;
+        int cores = servers.cores[server] - (deferred ? pendingCores[slot] : 0);
+        int memory = servers.memory[server] - (deferred ? pendingMemory[slot] : 0);
+        int disk = servers.disk[server] - (deferred ? pendingDisk[slot] : 0);
+
+        // The job has to wait, the server's available time can not be predicted. Jobs start in the order they were
+        // scheduled, so a job also waits behind a job that is already waiting on the server
+        if(cores < job.cores || memory < job.memory || disk < job.disk || waiting[slot] > 0) {
+            remember(servers, server, job, true);
+            waiting[slot]++;
+            drift = true;
+            return;
+        }
+
+        // The job starts once the server is ready
+        int start = job.submitTime;
+        if(servers.state[server] == ServerTable.INACTIVE) {
+
+            start += bootupTime(servers.type[server]);
+            bootCompletion[slot] = start;
+            bootCores[slot] = servers.cores[server];
+            bootCompletionTimes.add(start);
+            servers.state[server] = ServerTable.BOOTING;
+
+        } else if(servers.state[server] == ServerTable.BOOTING) {
+            start = Math.max(start, bootCompletion[slot] != -1 ? bootCompletion[slot] : servers.availTime[server]);
+        } else if(servers.state[server] == ServerTable.IDLE) {
+            servers.state[server] = ServerTable.ACTIVE;
+        }
+
+        remember(servers, server, job, false);
+
+        if(bootCompletion[slot] != -1) {
+            pendingCores[slot] += job.cores;
+            pendingMemory[slot] += job.memory;
+            pendingDisk[slot] += job.disk;
+            drift |= !reservationKnown;
+        }
+
+        // The server takes the resources once the job starts, which is read by the refresh at boot completion
+        if(bootCompletion[slot] != -1 && !reservesWhileBooting) {
+            servers.availTime[server] = -1;
+            servers.markChanged(server);
+            return;
+        }
+
+        servers.cores[server] -= job.cores;
+        servers.memory[server] -= job.memory;
+        servers.disk[server] -= job.disk;
+        servers.availTime[server] = -1;
+        servers.markChanged(server);
+
+    }
+
+    /**
+     * Is called when a JCPL message is received, the job's resources are added back to the server it ran on. If the
+     * server has all of its initial resources back it has no jobs left and becomes idle.
+     */
+    public void completed(ServerTable servers, ServerTable initialServers, int jobID) {
+
+        completionsReported = true;
+
+        // The resources of a job that had to wait may not have been subtracted from the server
+        int job = scheduledJobs.find(jobID);
+        if(job == -1) {
+            drift = true;
+            return;
+        }
+
+        int server = servers.indexOf(scheduledJobs.get(job, SERVER_TYPE), scheduledJobs.get(job, SERVER_ID));
+        boolean waited = scheduledJobs.get(job, WAITED) != 0;
+        int cores = scheduledJobs.get(job, CORES);
+        int memory = scheduledJobs.get(job, MEMORY);
+        int disk = scheduledJobs.get(job, DISK);
+        scheduledJobs.release(job);
+
+        int slot = server == -1 ? -1 : servers.slot(server);
+        if(server != -1 && waited)
+            waited(slot);
+
+        if(server == -1 || waited) {
+            drift = true;
+            return;
+        }
+
+        // The resources of a job on a server that has not been read since it booted were never taken by the model
+        if(!reservesWhileBooting && bootCompletion[slot] != -1)
+            return;
+
+        // A job waiting on the server may start in place of this one
+        if(waiting[slot] > 0)
+            drift = true;
+
+        servers.cores[server] += cores;
+        servers.memory[server] += memory;
+        servers.disk[server] += disk;
+        servers.markChanged(server);
+
+        // A job that was still waiting when the table was refreshed never had its resources subtracted by the server,
+        // a server can not have more than its initial resources
+        if(servers.cores[server] > initialServers.cores[server] ||
+                servers.memory[server] > initialServers.memory[server] ||
+                    servers.disk[server] > initialServers.disk[server]) {
+
+            servers.cores[server] = Math.min(servers.cores[server], initialServers.cores[server]);
+            servers.memory[server] = Math.min(servers.memory[server], initialServers.memory[server]);
+            servers.disk[server] = Math.min(servers.disk[server], initialServers.disk[server]);
+            drift = true;
+
+        }
+
+        if(servers.state[server] == ServerTable.ACTIVE &&
+                servers.cores[server] == initialServers.cores[server] &&
+                    servers.memory[server] == initialServers.memory[server] &&
+                        servers.disk[server] == initialServers.disk[server]) {
+
+            servers.state[server] = ServerTable.IDLE;
+            servers.availTime[server] = servers.readTime(servers.type[server]);
+
+        }
+
+    }
+
+    /**
+     * Is called when a RESF message is received, the jobs of the server are lost (the server submits them again) and
+     * the server can not run jobs until it recovers.
+     */
+    public void failed(ServerTable servers, int server) {
+
+        for(int r = 0; r < scheduledJobs.capacity(); r++) {
+            if(scheduledJobs.isLive(r) && scheduledJobs.get(r, SERVER_TYPE) == servers.type[server] &&
+                    scheduledJobs.get(r, SERVER_ID) == servers.id[server])
+                scheduledJobs.release(r);
+        }
+
+        int slot = servers.slot(server);
+        booted(slot);
+        waiting[slot] = 0;
+
+        servers.state[server] = ServerTable.UNAVAILABLE;
+        servers.availTime[server] = -1;
+        removeResources(servers, server);
+
+    }
+
+    /**
+     * Is called when a RESR message is received, the server has to boot again before it can run a job.
+     */
+    public void recovered(ServerTable servers, ServerTable initialServers, int server, int time) {
+
+        servers.state[server] = ServerTable.INACTIVE;
+        servers.availTime[server] = servers.readTime(servers.type[server]) + bootupTime(servers.type[server]);
+        servers.cores[server] = initialServers.cores[server];
+        servers.memory[server] = initialServers.memory[server];
+        servers.disk[server] = initialServers.disk[server];
+        servers.markChanged(server);
+
+    }
+
+    // A job scheduled again replaces its record, once the store is full the job in its record is forgotten
+    private void remember(ServerTable servers, int server, Job job, boolean waited) {
+
+        int r = scheduledJobs.claim(job.id);
+        if(scheduledJobs.isLive(r) && scheduledJobs.get(r, WAITED) != 0) {
+
+            // The forgotten job no longer waits on its server
+            int forgotten = servers.indexOf(scheduledJobs.get(r, SERVER_TYPE), scheduledJobs.get(r, SERVER_ID));
+            if(forgotten != -1)
+                waited(servers.slot(forgotten));
+
+        }
+
+        scheduledJobs.hold(r, job.id);
+        scheduledJobs.set(r, SERVER_TYPE, servers.type[server]);
+        scheduledJobs.set(r, SERVER_ID, servers.id[server]);
+        scheduledJobs.set(r, WAITED, waited ? 1 : 0);
+        scheduledJobs.set(r, CORES, job.cores);
+        scheduledJobs.set(r, MEMORY, job.memory);
+        scheduledJobs.set(r, DISK, job.disk);
+
+    }
+
+    // A job that had to wait on the server in the slot has completed or been forgotten
+    private void waited(int slot) {
+
+        if(slot != -1 && waiting[slot] > 0)
+            waiting[slot]--;
+
+    }
+
+    // The server in the slot is no longer booting for our jobs, or has been read since it booted
+    private void booted(int slot) {
+
+        bootCompletion[slot] = -1;
+        pendingCores[slot] = 0;
+        pendingMemory[slot] = 0;
+        pendingDisk[slot] = 0;
+
+    }
+
+    private void ensureServers(int size) {
+
+        int length = bootCompletion.length;
+        bootCompletion = Arrays.copyOf(bootCompletion, size);
+        bootCores = Arrays.copyOf(bootCores, size);
+        pendingCores = Arrays.copyOf(pendingCores, size);
+        pendingMemory = Arrays.copyOf(pendingMemory, size);
+        pendingDisk = Arrays.copyOf(pendingDisk, size);
+        waiting = Arrays.copyOf(waiting, size);
+        Arrays.fill(bootCompletion, length, size, -1);
+
+    }
+
+    // An unavailable server has no resources, so it never has sufficient resources for a job
+    private static void removeResources(ServerTable servers, int server) {
+
+        servers.cores[server] = 0;
+        servers.memory[server] = 0;
+        servers.disk[server] = 0;
+        servers.markChanged(server);
+
+    }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Scheduling Policy
+ * Chooses the server each job is scheduled to. The policy given by "-a" is created for every session by
+ * Client.createPolicy() and is told about the session as it runs, so a policy can keep its own state, e.g. an index
+ * over the servers, up to date between jobs instead of finding everything again from allServerInfo for each job.
+ *
+ *      onInit()        - once the first RESC All has been read and the client has found the server type order, hourly
+ *                        rates and initial resources (the server catalogue), before the first job is scheduled.
+ *      onJobSubmit()   - for each job received (JOBN), before select() is called for it.
+ *      onJobComplete() - for each job completion received (JCPL), after its resources are returned to its server.
+ *      onServerFailed(), onServerRecovered()
+ *                      - for each server failure (RESF) and recovery (RESR), after the server table has been updated.
+ *      predict()       - with "-r auto", the server select() would choose for a job from the servers before they are
+ *                        refreshed, see DriftMonitor.
+ *      select()        - find a server for a job.
+ *
+ * The reference policies are part of the client:
+ *
+ *      AllToLargestPolicy       - "atl", every job to the server with the most cores (default).
+ *      FirstFitPolicy           - "ff"
+ *      BestFitPolicy            - "bf", all three resources with "-f", see Fitness.
+ *      WorstFitPolicy           - "wf", all three resources with "-f", see Fitness.
+ *      LowestCostPolicy         - "cost", see Client.findLowestCost().
+ *      EarliestCompletionPolicy - "ect", see Client.findEarliestCompletion().
+ *
+ * Other policies are found with java.util.ServiceLoader: a jar on the class path lists its classes in
+ * META-INF/services/SchedulingPolicy, each with a public constructor without arguments, and a policy is chosen with
+ * "-a" followed by its name(). The reference policies are used if a name is taken by both.
+ */
+public interface SchedulingPolicy {
+
+    /**
+     * @return the name given to "-a" to use this policy.
+     */
+    String name();
+
+    /**
+     * Called once the client knows the servers, the policy may keep the client to read its tables in select().
+     */
+    void onInit(Client client);
+
+    /**
+     * Called when a job is received, before select() is called for it.
+     */
+    default void onJobSubmit(Job job) { }
+
+    /**
+     * Called when a job has completed, its resources have been returned to allServerInfo.
+     */
+    default void onJobComplete(int endTime, int jobID) { }
+
+    /**
+     * Called when a server has failed, it has no resources in allServerInfo until it recovers.
+     */
+    default void onServerFailed(int server, int time) { }
+
+    /**
+     * Called when a server has recovered, it is inactive with all of its initial resources.
+     */
+    default void onServerRecovered(int server, int time) { }
+
+    // Returned by predict() when the policy can not find a server without changing its state
+    int NO_PREDICTION = -2;
+
+    /**
+     * Find the server select() would choose for the job without changing anything a later select() depends on, it is
+     * called before the servers are refreshed and select() is then called for the same job. A policy that does not
+     * override it is never compared, so "-r auto" keeps refreshing the servers before every job.
+     * @return the index of the server in allServerInfo, -1 if no server can run the job, or NO_PREDICTION.
+     */
+    default int predict(Job job) {
+        return NO_PREDICTION;
+    }
+
+    /**
+     * Find a server for the job, it is called again for the same job once the servers have been refreshed if no
+     * server was found.
+     * @return the index of the server in allServerInfo, or -1 if no server can run the job.
+     */
+    int select(Job job);
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Server Event
+ * A reply to REDY parsed once into a typed event, so the scheduler dispatches on the type instead of comparing the
+ * reply in several places. A single ServerEvent is reused for every reply and jobs are parsed into the client's Job.
+ *
+ *      JOBN submit_time job_ID estimated_runtime #CPU_cores memory disk    JOB         a job to schedule
+ *      JOBP submit_time job_ID estimated_runtime #CPU_cores memory disk    JOB         a job submitted again after its
+ *                                                                                      server failed
+ *      JCPL end_time job_ID server_type server_ID                          COMPLETED   a job has completed
+ *      RESF server_type server_ID time                                     FAILED      a server has failed, its jobs are lost
+ *      RESR server_type server_ID time                                     RECOVERED   a server has recovered
+ *      NONE                                                                NONE        every job has been scheduled
+ *
+ * Anything else (e.g. ERR:) is OTHER, which ends the session in the same way as NONE.
+ */
+public class ServerEvent {
+
+    public static final int OTHER     = 0;
+    public static final int JOB       = 1;
+    public static final int COMPLETED = 2;
+    public static final int FAILED    = 3;
+    public static final int RECOVERED = 4;
+    public static final int NONE      = 5;
+
+    public int type = OTHER;
+    public int time = 0;
+    public int jobID = -1;
+    public int server = -1; // index in the server table, -1 if it is not listed (e.g. before the first RESC All)
+
+    // Details of the job of a JOB event
+    public final Job job;
+
+    public ServerEvent(Job job) {
+        this.job = job;
+    }
+
+    /**
+     * Read the reply to a REDY, servers are found in the given table.
+     */
+    public void parse(MessageCodec message, ServerTable servers) {
+
+        jobID = -1;
+        server = -1;
+
+        if(message.lineStartsWith("JOBN") || message.lineStartsWith("JOBP")) {
+
+            type = JOB;
+            job.parse(message);
+            time = job.submitTime;
+            jobID = job.id;
+
+        } else if(message.lineStartsWith("JCPL")) {
+
+            type = COMPLETED;
+            message.skipToken();
+            time = message.nextInt();
+            jobID = message.nextInt();
+            server = nextServer(message, servers);
+
+        } else if(message.lineStartsWith("RESF") || message.lineStartsWith("RESR")) {
+
+            type = message.lineStartsWith("RESF") ? FAILED : RECOVERED;
+            message.skipToken();
+            server = nextServer(message, servers);
+            time = message.nextInt();
+
+        } else if(message.lineEquals("NONE")) {
+
+            type = NONE;
+
+        } else {
+
+            type = OTHER;
+
+        }
+
+    }
+
+    // Read server_type server_ID, the server type is only interned once the table has been filled
+    private static int nextServer(MessageCodec message, ServerTable servers) {
+
+        if(servers.size == 0) {
+            message.skipToken();
+            message.skipToken();
+            return -1;
+        }
+
+        int serverType = servers.typeId(message);
+        return servers.indexOf(serverType, message.nextInt());
+
+    }
+
+}
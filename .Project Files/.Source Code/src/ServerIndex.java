@@ -0,0 +1,576 @@
+import java.util.Arrays;
+
+/**
+ * Server Index
+ * Indexes the servers of allServerInfo (and initialAllServerInfo for the fallback checks) by their capacity so that
+ * First-Fit, Best-Fit and Worst-Fit can find a server without checking every server for every job. The servers
+ * returned are exactly the ones the original linear searches return, including how ties are broken.
+ *
+ *      First-Fit   - Segment tree over the servers in list order holding the largest cores, memory and disk of each
+ *                    range, the first server with sufficient resources is found by skipping every range that can not
+ *                    hold the job.
+ *      Best-Fit    - Servers ordered by (cores, available_time, index), the best-fit is the first server from the
+ *                    ceiling of the job's cores that also has sufficient memory and disk.
+ *      Worst-Fit   - Servers ordered by (immediately available first, largest cores, index), the worst-fit is the first
+ *                    server with sufficient resources.
+ *
+ * The fallback checks (initial resource capacity of active servers) use the same structures built from
+ * initialAllServerInfo, holding only the servers that are currently active.
+ *
+ * Best-Fit and Worst-Fit use a FitTree, a treap over int keys that also holds the largest resources below each node,
+ * so a search skips every subtree with too few cores, memory or disk as First-Fit does. A search takes O(log n) when
+ * the largest values of a subtree come from a server that fits, the worst case is still O(n): a subtree whose largest
+ * memory and largest disk come from different servers is entered but holds no server with both, e.g. when half the
+ * servers have memory and the other half disk to spare.
+ *
+ * The index is brought up to date by sync(), which only re-indexes the servers marked as changed in the table. A table
+ * that has been refilled by RESC is compared with the index and only the servers whose values changed are moved.
+ * Moving a server takes O(log n) and does not allocate.
+ */
+public class ServerIndex {
+
+    private ServerTable servers = null;
+    private ServerTable initialServers = null;
+    private int size = 0;
+
+    // Values of each server when it was last indexed (see ServerTable.relativeAvailTime())
+    private int[] cores = new int[0];
+    private int[] memory = new int[0];
+    private int[] disk = new int[0];
+    private int[] availTime = new int[0];
+    private int[] state = new int[0];
+
+    // Best-Fit: every server by (cores, available_time, index)
+    private final FitTree byCores = new FitTree();
+
+    // Worst-Fit: every server by (0 if immediately available else 1, largest cores, index)
+    private final FitTree byLargestCores = new FitTree();
+
+    // Fallbacks: active servers by their initial cores, smallest first for Best-Fit and largest first for Worst-Fit
+    private final FitTree activeBySmallestInitialCores = new FitTree();
+    private final FitTree activeByLargestInitialCores = new FitTree();
+
+    // First-Fit: current resources of every server, and initial resources of the active servers
+    private final CapacityTree capacity = new CapacityTree();
+    private final CapacityTree activeInitialCapacity = new CapacityTree();
+
+    // The sets are only filled once Best-Fit or Worst-Fit is used, First-Fit only needs the trees
+    private boolean setsFilled = false;
+
+    /**
+     * Bring the index up to date with the tables, must be called before searching if the tables may have changed.
+     */
+    public void sync(ServerTable servers, ServerTable initialServers) {
+
+        if(servers != this.servers || initialServers != this.initialServers || servers.size != size) {
+
+            rebuild(servers, initialServers);
+
+        } else if(servers.isRefilled()) {
+
+            for(int i = 0; i < size; i++) {
+                if(hasChanged(i))
+                    update(i);
+            }
+
+        } else {
+
+            for(int k = 0; k < servers.changedCount(); k++) {
+                if(hasChanged(servers.changed(k)))
+                    update(servers.changed(k));
+            }
+
+        }
+
+        servers.clearChanges();
+
+    }
+
+    /**
+     * @return the index of the first server with sufficient resources, otherwise the first active server with
+     * sufficient initial resources, otherwise -1.
+     */
+    public int firstFit(Job job) {
+
+        int server = capacity.first(job.cores, job.memory, job.disk);
+        if(server != -1)
+            return server;
+
+        return activeInitialCapacity.first(job.cores, job.memory, job.disk);
+
+    }
+
+    /**
+     * @return the index of the server with sufficient resources and the fewest cores (ties broken by the earliest
+     * available time, then list order), otherwise the active server with sufficient initial resources and the fewest
+     * initial cores, otherwise -1.
+     */
+    public int bestFit(Job job) {
+
+        fillSets();
+
+        int server = byCores.first(job.cores, Integer.MIN_VALUE, job.cores, job.memory, job.disk);
+        if(server != -1)
+            return server;
+
+        return activeBySmallestInitialCores.first(job.cores, Integer.MIN_VALUE, job.cores, job.memory, job.disk);
+
+    }
+
+    /**
+     * @return the index of the immediately available server with sufficient resources and the most cores, otherwise
+     * the unavailable server with sufficient resources and the most cores, otherwise the active server with sufficient
+     * initial resources and the most initial cores, otherwise -1. Ties are broken by list order.
+     */
+    public int worstFit(Job job) {
+
+        fillSets();
+
+        int server = byLargestCores.first(Integer.MIN_VALUE, Integer.MIN_VALUE, job.cores, job.memory, job.disk);
+        if(server != -1)
+            return server;
+
+        return activeByLargestInitialCores.first(Integer.MIN_VALUE, Integer.MIN_VALUE, job.cores, job.memory,
+                job.disk);
+
+    }
+
+    private boolean hasChanged(int i) {
+
+        return cores[i] != servers.cores[i] || memory[i] != servers.memory[i] || disk[i] != servers.disk[i] ||
+                availTime[i] != servers.relativeAvailTime(i) || state[i] != servers.state[i];
+
+    }
+
+    private void rebuild(ServerTable servers, ServerTable initialServers) {
+
+        this.servers = servers;
+        this.initialServers = initialServers;
+        size = servers.size;
+
+        if(cores.length < size) {
+            cores = new int[size];
+            memory = new int[size];
+            disk = new int[size];
+            availTime = new int[size];
+            state = new int[size];
+        }
+
+        clearSets();
+        capacity.reset(size);
+        activeInitialCapacity.reset(size);
+
+        for(int i = 0; i < size; i++) {
+            copyValues(i);
+            setCapacity(i);
+        }
+
+        capacity.build();
+        activeInitialCapacity.build();
+
+    }
+
+    // Move server i to its new position in every structure
+    private void update(int i) {
+
+        if(setsFilled)
+            removeFromSets(i);
+
+        copyValues(i);
+        setCapacity(i);
+        capacity.update(i);
+        activeInitialCapacity.update(i);
+
+        if(setsFilled)
+            addToSets(i);
+
+    }
+
+    private void copyValues(int i) {
+
+        cores[i] = servers.cores[i];
+        memory[i] = servers.memory[i];
+        disk[i] = servers.disk[i];
+        availTime[i] = servers.relativeAvailTime(i);
+        state[i] = servers.state[i];
+
+    }
+
+    private void setCapacity(int i) {
+
+        capacity.set(i, cores[i], memory[i], disk[i]);
+
+        if(isActiveWithInitialResources(i))
+            activeInitialCapacity.set(i, initialServers.cores[i], initialServers.memory[i], initialServers.disk[i]);
+        else
+            activeInitialCapacity.set(i, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE);
+
+    }
+
+    private void fillSets() {
+
+        if(setsFilled)
+            return;
+
+        for(int i = 0; i < size; i++)
+            addToSets(i);
+
+        setsFilled = true;
+
+    }
+
+    private void clearSets() {
+
+        byCores.reset(size);
+        byLargestCores.reset(size);
+        activeBySmallestInitialCores.reset(size);
+        activeByLargestInitialCores.reset(size);
+
+        setsFilled = false;
+
+    }
+
+    // Keys ordering the largest first are stored complemented, ~x is smaller the larger x is and never overflows
+    private void addToSets(int i) {
+
+        byCores.add(i, cores[i], availTime[i], cores[i], memory[i], disk[i]);
+        byLargestCores.add(i, isImmediatelyAvailable(state[i]) ? 0 : 1, ~cores[i], cores[i], memory[i], disk[i]);
+
+        if(isActiveWithInitialResources(i)) {
+
+            int initialCores = initialServers.cores[i];
+            int initialMemory = initialServers.memory[i];
+            int initialDisk = initialServers.disk[i];
+            activeBySmallestInitialCores.add(i, initialCores, 0, initialCores, initialMemory, initialDisk);
+            activeByLargestInitialCores.add(i, ~initialCores, 0, initialCores, initialMemory, initialDisk);
+
+        }
+
+    }
+
+    // Must be called before the values of server i are copied, its state decides which sets it is in
+    private void removeFromSets(int i) {
+
+        byCores.remove(i);
+        byLargestCores.remove(i);
+
+        if(isActiveWithInitialResources(i)) {
+            activeBySmallestInitialCores.remove(i);
+            activeByLargestInitialCores.remove(i);
+        }
+
+    }
+
+    // Only servers listed in initialAllServerInfo are used by the fallback checks
+    private boolean isActiveWithInitialResources(int i) {
+        return state[i] == ServerTable.ACTIVE && i < initialServers.size;
+    }
+
+    private static boolean isImmediatelyAvailable(int serverState) {
+        return serverState == ServerTable.IDLE || serverState == ServerTable.ACTIVE;
+    }
+
+    /**
+     * Treap of servers ordered by (key1, key2, index), each node also holds the largest cores, memory and disk of the
+     * servers in its subtree so first() skips every subtree that can not hold the job. Every value is held in arrays by
+     * server index, so adding and removing a server does not allocate.
+     */
+    private static class FitTree {
+
+        private static final int NIL = -1;
+
+        private int root = NIL;
+        private int[] key1 = new int[0];
+        private int[] key2 = new int[0];
+        private int[] priority = new int[0];
+        private int[] left = new int[0];
+        private int[] right = new int[0];
+        private int[] cores = new int[0];
+        private int[] memory = new int[0];
+        private int[] disk = new int[0];
+        private int[] maxCores = new int[0];
+        private int[] maxMemory = new int[0];
+        private int[] maxDisk = new int[0];
+
+        // Results of split()
+        private int splitLow, splitHigh;
+
+        // Remove every server, servers 0 to size - 1 can then be added
+        void reset(int size) {
+
+            root = NIL;
+            if(key1.length >= size)
+                return;
+
+            key1 = new int[size];
+            key2 = new int[size];
+            priority = new int[size];
+            left = new int[size];
+            right = new int[size];
+            cores = new int[size];
+            memory = new int[size];
+            disk = new int[size];
+            maxCores = new int[size];
+            maxMemory = new int[size];
+            maxDisk = new int[size];
+
+            // The priority of a server only has to look random, a fixed hash keeps the tree the same between runs
+            for(int i = 0; i < size; i++) {
+                int h = i * 0x9E3779B9;
+                priority[i] = h ^ (h >>> 16);
+            }
+
+        }
+
+        // Server i must not be in the tree
+        void add(int i, int serverKey1, int serverKey2, int serverCores, int serverMemory, int serverDisk) {
+
+            key1[i] = serverKey1;
+            key2[i] = serverKey2;
+            cores[i] = serverCores;
+            memory[i] = serverMemory;
+            disk[i] = serverDisk;
+            left[i] = NIL;
+            right[i] = NIL;
+            pull(i);
+
+            root = insert(root, i);
+
+        }
+
+        // Server i must be in the tree, it is found by the keys it was added with
+        void remove(int i) {
+            root = remove(root, i);
+        }
+
+        // @return the first server from (fromKey1, fromKey2) with at least the given resources, or -1
+        int first(int fromKey1, int fromKey2, int minCores, int minMemory, int minDisk) {
+            return first(root, fromKey1, fromKey2, minCores, minMemory, minDisk);
+        }
+
+        private int first(int node, int fromKey1, int fromKey2, int minCores, int minMemory, int minDisk) {
+
+            if(node == NIL || maxCores[node] < minCores || maxMemory[node] < minMemory || maxDisk[node] < minDisk)
+                return NIL;
+
+            // Every server to the left comes before the start
+            if(key1[node] < fromKey1 || key1[node] == fromKey1 && key2[node] < fromKey2)
+                return first(right[node], fromKey1, fromKey2, minCores, minMemory, minDisk);
+
+            int server = first(left[node], fromKey1, fromKey2, minCores, minMemory, minDisk);
+            if(server != NIL)
+                return server;
+
+            if(cores[node] >= minCores && memory[node] >= minMemory && disk[node] >= minDisk)
+                return node;
+
+            return first(right[node], fromKey1, fromKey2, minCores, minMemory, minDisk);
+
+        }
+
+        private int insert(int node, int i) {
+
+            if(node == NIL)
+                return i;
+
+            if(priority[i] > priority[node]) {
+                split(node, i);
+                left[i] = splitLow;
+                right[i] = splitHigh;
+                pull(i);
+                return i;
+            }
+
+            if(before(i, node))
+                left[node] = insert(left[node], i);
+            else
+                right[node] = insert(right[node], i);
+
+            pull(node);
+            return node;
+
+        }
+
+        private int remove(int node, int i) {
+
+            if(node == NIL)
+                return NIL;
+
+            if(node == i)
+                return merge(left[node], right[node]);
+
+            if(before(i, node))
+                left[node] = remove(left[node], i);
+            else
+                right[node] = remove(right[node], i);
+
+            pull(node);
+            return node;
+
+        }
+
+        // Split the subtree into the servers before server i (splitLow) and after it (splitHigh)
+        private void split(int node, int i) {
+
+            if(node == NIL) {
+                splitLow = NIL;
+                splitHigh = NIL;
+                return;
+            }
+
+            if(before(node, i)) {
+                split(right[node], i);
+                right[node] = splitLow;
+                pull(node);
+                splitLow = node;
+            } else {
+                split(left[node], i);
+                left[node] = splitHigh;
+                pull(node);
+                splitHigh = node;
+            }
+
+        }
+
+        // Every server of the low subtree comes before every server of the high subtree
+        private int merge(int low, int high) {
+
+            if(low == NIL)
+                return high;
+            if(high == NIL)
+                return low;
+
+            if(priority[low] > priority[high]) {
+                right[low] = merge(right[low], high);
+                pull(low);
+                return low;
+            }
+
+            left[high] = merge(low, left[high]);
+            pull(high);
+            return high;
+
+        }
+
+        private boolean before(int a, int b) {
+
+            if(key1[a] != key1[b])
+                return key1[a] < key1[b];
+            if(key2[a] != key2[b])
+                return key2[a] < key2[b];
+
+            return a < b;
+
+        }
+
+        // Recompute the largest values of the node's subtree from its children
+        private void pull(int node) {
+
+            int c = cores[node], m = memory[node], d = disk[node];
+            if(left[node] != NIL) {
+                c = Math.max(c, maxCores[left[node]]);
+                m = Math.max(m, maxMemory[left[node]]);
+                d = Math.max(d, maxDisk[left[node]]);
+            }
+            if(right[node] != NIL) {
+                c = Math.max(c, maxCores[right[node]]);
+                m = Math.max(m, maxMemory[right[node]]);
+                d = Math.max(d, maxDisk[right[node]]);
+            }
+
+            maxCores[node] = c;
+            maxMemory[node] = m;
+            maxDisk[node] = d;
+
+        }
+
+    }
+
+    /**
+     * Segment tree over the servers in list order, each node holds the largest cores, memory and disk of the servers
+     * below it. A range is skipped when one of its largest values is too small for the job, which has the same worst
+     * case as FitTree.first().
+     */
+    private static class CapacityTree {
+
+        private int leaves = 1;
+        private int[] maxCores = new int[2];
+        private int[] maxMemory = new int[2];
+        private int[] maxDisk = new int[2];
+
+        void reset(int size) {
+
+            leaves = 1;
+            while(leaves < size)
+                leaves *= 2;
+
+            if(maxCores.length < leaves * 2) {
+                maxCores = new int[leaves * 2];
+                maxMemory = new int[leaves * 2];
+                maxDisk = new int[leaves * 2];
+            }
+
+            Arrays.fill(maxCores, Integer.MIN_VALUE);
+            Arrays.fill(maxMemory, Integer.MIN_VALUE);
+            Arrays.fill(maxDisk, Integer.MIN_VALUE);
+
+        }
+
+        // Set the values of server i, the ranges above it are updated by build() or update()
+        void set(int i, int cores, int memory, int disk) {
+
+            int node = leaves + i;
+            maxCores[node] = cores;
+            maxMemory[node] = memory;
+            maxDisk[node] = disk;
+
+        }
+
+        // Update every range once all servers have been set
+        void build() {
+
+            for(int node = leaves - 1; node >= 1; node--)
+                combine(node);
+
+        }
+
+        // Update the ranges containing server i after it has been set
+        void update(int i) {
+
+            for(int node = (leaves + i) / 2; node >= 1; node /= 2)
+                combine(node);
+
+        }
+
+        private void combine(int node) {
+
+            maxCores[node] = Math.max(maxCores[node * 2], maxCores[node * 2 + 1]);
+            maxMemory[node] = Math.max(maxMemory[node * 2], maxMemory[node * 2 + 1]);
+            maxDisk[node] = Math.max(maxDisk[node * 2], maxDisk[node * 2 + 1]);
+
+        }
+
+        // @return the first server with at least the given resources, or -1
+        int first(int cores, int memory, int disk) {
+            return first(1, cores, memory, disk);
+        }
+
+        private int first(int node, int cores, int memory, int disk) {
+
+            if(maxCores[node] < cores || maxMemory[node] < memory || maxDisk[node] < disk)
+                return -1;
+
+            if(node >= leaves)
+                return node - leaves;
+
+            int server = first(node * 2, cores, memory, disk);
+            if(server != -1)
+                return server;
+
+            return first(node * 2 + 1, cores, memory, disk);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,514 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Server Table
+ * Holds the information of every server returned by a RESC command in a struct-of-arrays layout so that the scheduling
+ * algorithms can read the values directly as ints instead of parsing strings for every job.
+ *
+ *      server_type (char *) server_ID (int) server_state (int) available_time (int) #CPU_cores (int) memory (int) disk_space (int)
+ *      0                    1               2                  3                    4                5            6
+ *
+ * Server types are interned into an int id, the name of a type can be found using typeName().
+ *
+ * Code that changes the values of a server must call markChanged() so a ServerIndex over the table can be kept up to
+ * date without reading every server.
+ *
+ * The server reports the available time of an inactive, booting or idle server from the current time, so servers of
+ * types that were read at different times (see readAt()) are compared by relativeAvailTime() instead of availTime.
+ */
+public class ServerTable {
+
+    // Server states
+    public static final int INACTIVE    = 0;
+    public static final int BOOTING     = 1;
+    public static final int IDLE        = 2;
+    public static final int ACTIVE      = 3;
+    public static final int UNAVAILABLE = 4;
+
+    // Interned server type names, shared between copies of the table so type ids stay comparable
+    private final ArrayList<String> typeNames;
+
+    // Server data
+    public int size = 0;
+    public int[] type      = new int[16];
+    public int[] id        = new int[16];
+    public int[] state     = new int[16];
+    public int[] availTime = new int[16];
+    public int[] cores     = new int[16];
+    public int[] memory    = new int[16];
+    public int[] disk      = new int[16];
+
+    // Servers changed since the last call to clearChanges(), refilled is set when every server may have changed
+    private boolean refilled = true;
+    private int[] changed = new int[16];
+    private int changedCount = 0;
+
+    // Set by sortByType() and cleared by add(), a table already in type order is not sorted again
+    private boolean inTypeOrder = false;
+
+    // Time the servers of each type were last read, by type id
+    private int[] readTime = new int[0];
+
+    // First slot of each server type and the number of slots, given out by the first call to slot()
+    private int[] typeSlot = null;
+    private int slotCount = 0;
+
+    // Arrays the servers are moved into by sortByType(), swapped with the server data once sorted
+    private int[] sortType, sortId, sortState, sortAvailTime, sortCores, sortMemory, sortDisk;
+    private int[] rankStart = new int[0];
+
+    public ServerTable() {
+        this(new ArrayList<String>());
+    }
+
+    private ServerTable(ArrayList<String> typeNames) {
+        this.typeNames = typeNames;
+    }
+
+    /**
+     * Delete old information so the table can be filled again, the arrays are kept so refilling does not allocate.
+     */
+    public void clear() {
+        size = 0;
+        refilled = true;
+        changedCount = 0;
+        inTypeOrder = false;
+    }
+
+    /**
+     * Read a single server record of a RESC response from the codec and add it to the end of the table.
+     *  e.g. tiny 0 0 143 1 1000 4000
+     */
+    public void add(MessageCodec record) {
+
+        ensureCapacity(size + 1);
+
+        type[size]      = typeId(record);
+        id[size]        = record.nextInt();
+        state[size]     = record.nextInt();
+        availTime[size] = record.nextInt();
+        cores[size]     = record.nextInt();
+        memory[size]    = record.nextInt();
+        disk[size]      = record.nextInt();
+
+        size++;
+        inTypeOrder = false;
+
+    }
+
+    /**
+     * Add a server to the end of the table from its values, e.g. a server read back from a WorkloadTrace.
+     */
+    public void add(int serverType, int serverID, int serverState, int serverAvailTime, int serverCores,
+                    int serverMemory, int serverDisk) {
+
+        ensureCapacity(size + 1);
+
+        type[size]      = serverType;
+        id[size]        = serverID;
+        state[size]     = serverState;
+        availTime[size] = serverAvailTime;
+        cores[size]     = serverCores;
+        memory[size]    = serverMemory;
+        disk[size]      = serverDisk;
+
+        size++;
+        inTypeOrder = false;
+
+    }
+
+    /**
+     * Read a single server record of a RESC response from the codec and replace the values of the same server in the
+     * table, e.g. a record of RESC Type. The server is looked for at the expected index first.
+     * @return the index of the server, -1 if it is not in the table.
+     */
+    public int update(MessageCodec record, int expected) {
+
+        int serverType = typeId(record);
+        int serverID = record.nextInt();
+
+        int i = expected >= 0 && expected < size && type[expected] == serverType && id[expected] == serverID ?
+                expected : indexOf(serverType, serverID);
+        if(i == -1)
+            return -1;
+
+        set(i, record.nextInt(), record.nextInt(), record.nextInt(), record.nextInt(), record.nextInt());
+        return i;
+
+    }
+
+    /**
+     * Replace the values of server i, the server is recorded by markChanged() if any of them changed.
+     */
+    public void set(int i, int serverState, int serverAvailTime, int serverCores, int serverMemory, int serverDisk) {
+
+        if(state[i] == serverState && availTime[i] == serverAvailTime && cores[i] == serverCores &&
+                memory[i] == serverMemory && disk[i] == serverDisk)
+            return;
+
+        state[i]     = serverState;
+        availTime[i] = serverAvailTime;
+        cores[i]     = serverCores;
+        memory[i]    = serverMemory;
+        disk[i]      = serverDisk;
+        markChanged(i);
+
+    }
+
+    /**
+     * Append server i of another table to the end of this table.
+     */
+    public void add(ServerTable other, int i) {
+
+        ensureCapacity(size + 1);
+
+        type[size]      = other.type[i];
+        id[size]        = other.id[i];
+        state[size]     = other.state[i];
+        availTime[size] = other.availTime[i];
+        cores[size]     = other.cores[i];
+        memory[size]    = other.memory[i];
+        disk[size]      = other.disk[i];
+
+        size++;
+        inTypeOrder = false;
+
+    }
+
+    /**
+     * @return a copy of this table which shares the same server type ids but not the server data.
+     */
+    public ServerTable copy() {
+
+        ServerTable temp = emptyCopy();
+        for(int i = 0; i < size; i++)
+            temp.add(this, i);
+
+        return temp;
+
+    }
+
+    /**
+     * @return an empty table which shares the same server type ids.
+     */
+    public ServerTable emptyCopy() {
+        return new ServerTable(typeNames);
+    }
+
+    /**
+     * Reorder the servers so that their types are in order of rank, servers of the same type keep their order. Types
+     * without a rank are removed from the table. This is a counting sort, so it takes O(servers + types) and does not
+     * allocate once the table has been sorted before.
+     *
+     * @param typeRank the rank of each type id, -1 or beyond the end of the array for a type without a rank.
+     * @param rankCount the number of ranks.
+     */
+    public void sortByType(int[] typeRank, int rankCount) {
+
+        if(inTypeOrder)
+            return;
+
+        if(sortType == null || sortType.length < type.length) {
+            sortType      = new int[type.length];
+            sortId        = new int[type.length];
+            sortState     = new int[type.length];
+            sortAvailTime = new int[type.length];
+            sortCores     = new int[type.length];
+            sortMemory    = new int[type.length];
+            sortDisk      = new int[type.length];
+        }
+
+        if(rankStart.length < rankCount + 1)
+            rankStart = new int[rankCount + 1];
+
+        // Count the servers of each rank, then find the position of the first server of each rank
+        Arrays.fill(rankStart, 0, rankCount + 1, 0);
+        for(int i = 0; i < size; i++) {
+
+            int rank = rankOf(typeRank, type[i]);
+            if(rank != -1)
+                rankStart[rank + 1]++;
+
+        }
+
+        for(int rank = 0; rank < rankCount; rank++)
+            rankStart[rank + 1] += rankStart[rank];
+
+        for(int i = 0; i < size; i++) {
+
+            int rank = rankOf(typeRank, type[i]);
+            if(rank == -1)
+                continue;
+
+            int j = rankStart[rank]++;
+            sortType[j]      = type[i];
+            sortId[j]        = id[i];
+            sortState[j]     = state[i];
+            sortAvailTime[j] = availTime[i];
+            sortCores[j]     = cores[i];
+            sortMemory[j]    = memory[i];
+            sortDisk[j]      = disk[i];
+
+        }
+
+        // Every rank has been moved past its servers, so the last one ends at the number of servers kept
+        size = rankCount > 0 ? rankStart[rankCount - 1] : 0;
+
+        int[] temp;
+        temp = type;      type      = sortType;      sortType      = temp;
+        temp = id;        id        = sortId;        sortId        = temp;
+        temp = state;     state     = sortState;     sortState     = temp;
+        temp = availTime; availTime = sortAvailTime; sortAvailTime = temp;
+        temp = cores;     cores     = sortCores;     sortCores     = temp;
+        temp = memory;    memory    = sortMemory;    sortMemory    = temp;
+        temp = disk;      disk      = sortDisk;      sortDisk      = temp;
+
+        inTypeOrder = true;
+        refilled = true;
+        changedCount = 0;
+
+    }
+
+    private static int rankOf(int[] typeRank, int serverType) {
+        return serverType < typeRank.length ? typeRank[serverType] : -1;
+    }
+
+    /**
+     * Record that the values of server i have been changed outside of add().
+     */
+    public void markChanged(int i) {
+
+        if(refilled)
+            return;
+
+        // Once as many changes as servers are recorded it is quicker to check every server
+        if(changedCount == changed.length || changedCount >= size) {
+            refilled = true;
+            changedCount = 0;
+            return;
+        }
+
+        changed[changedCount++] = i;
+
+    }
+
+    /**
+     * @return true if every server may have changed since the last call to clearChanges(), e.g. after a RESC refill.
+     */
+    public boolean isRefilled() {
+        return refilled;
+    }
+
+    /**
+     * @return the number of changes recorded by markChanged(), a server may be listed more than once.
+     */
+    public int changedCount() {
+        return changedCount;
+    }
+
+    /**
+     * @return the index of the server of the k-th recorded change.
+     */
+    public int changed(int k) {
+        return changed[k];
+    }
+
+    public void clearChanges() {
+        refilled = false;
+        changedCount = 0;
+    }
+
+    /**
+     * Record that the servers of the given types (by type id, every type if null) were read from the server at time.
+     * A booting server's relative available time changes with the read time, so it is marked changed.
+     */
+    public void readAt(int time, boolean[] types) {
+
+        if(readTime.length < typeCount())
+            readTime = Arrays.copyOf(readTime, typeCount());
+
+        for(int t = 0; t < readTime.length; t++) {
+            if(types == null || t < types.length && types[t])
+                readTime[t] = time;
+        }
+
+        for(int i = 0; i < size; i++) {
+            if(state[i] == BOOTING && availTime[i] >= 0 && (types == null || type[i] < types.length && types[type[i]]))
+                markChanged(i);
+        }
+
+    }
+
+    /**
+     * @return the time the servers of a type were last read, see readAt().
+     */
+    public int readTime(int serverType) {
+        return serverType < readTime.length ? readTime[serverType] : 0;
+    }
+
+    /**
+     * @return the available time of server i from the time its type was last read if the server reports it from the
+     * current time (inactive or booting), 0 for an idle server which is available at the current time, otherwise
+     * availTime. Servers read at different times keep the order the server would give them if they were all read at
+     * once, and the value of a server does not change when it is read again in the same state.
+     */
+    public int relativeAvailTime(int i) {
+
+        if(state[i] == IDLE)
+            return 0;
+        if(availTime[i] < 0 || state[i] != INACTIVE && state[i] != BOOTING)
+            return availTime[i];
+
+        return availTime[i] - readTime(type[i]);
+
+    }
+
+    /**
+     * @return the index of the server with the given type id and server id, or -1 if it is not in the table.
+     */
+    public int indexOf(int serverType, int serverID) {
+
+        // Servers of the same type are listed together in order of their id, so check the expected position first
+        for(int i = 0; i < size; i++) {
+
+            if(type[i] == serverType) {
+
+                int expected = i + serverID;
+                if(expected < size && type[expected] == serverType && id[expected] == serverID)
+                    return expected;
+
+                break;
+
+            }
+
+        }
+
+        for(int i = 0; i < size; i++) {
+            if(type[i] == serverType && id[i] == serverID)
+                return i;
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * @return a number for server i below slotCount() that stays the same when the table is refilled or sorted, -1 if
+     * the server was not in the table when the slots were given out. The servers of a session do not change, so the
+     * slots are given out once from the largest server ID of each type.
+     */
+    public int slot(int i) {
+
+        if(typeSlot == null)
+            layoutSlots();
+
+        int serverType = type[i];
+        if(serverType >= typeSlot.length || id[i] < 0)
+            return -1;
+
+        int slot = typeSlot[serverType] + id[i];
+        int end = serverType + 1 < typeSlot.length ? typeSlot[serverType + 1] : slotCount;
+        return slot < end ? slot : -1;
+
+    }
+
+    /**
+     * @return the number of slots given out by slot().
+     */
+    public int slotCount() {
+
+        if(typeSlot == null && size > 0)
+            layoutSlots();
+
+        return slotCount;
+
+    }
+
+    private void layoutSlots() {
+
+        int[] count = new int[typeCount()];
+        for(int i = 0; i < size; i++)
+            count[type[i]] = Math.max(count[type[i]], id[i] + 1);
+
+        typeSlot = new int[count.length];
+        for(int t = 0; t < count.length; t++) {
+            typeSlot[t] = slotCount;
+            slotCount += count[t];
+        }
+
+    }
+
+    /**
+     * @return the name of the server type of server i.
+     */
+    public String typeName(int i) {
+        return typeNames.get(type[i]);
+    }
+
+    /**
+     * @return the name of the server type with the given interned id.
+     */
+    public String typeNameOf(int serverType) {
+        return typeNames.get(serverType);
+    }
+
+    /**
+     * @return the number of distinct server types seen so far.
+     */
+    public int typeCount() {
+        return typeNames.size();
+    }
+
+    /**
+     * @return the interned id of a server type name, a new id is created if the type has not been seen before.
+     */
+    public int typeId(String typeName) {
+
+        int i = typeNames.indexOf(typeName);
+        if(i != -1)
+            return i;
+
+        typeNames.add(typeName);
+        return typeNames.size() - 1;
+
+    }
+
+    /**
+     * Read the next word of the codec as a server type, a new id is created if the type has not been seen before.
+     */
+    public int typeId(MessageCodec record) {
+
+        // Compare the bytes of the record so no String is created unless it is a new type
+        for(int i = 0; i < typeNames.size(); i++) {
+
+            if(record.tokenEquals(typeNames.get(i))) {
+                record.skipToken();
+                return i;
+            }
+
+        }
+
+        typeNames.add(record.nextToken());
+        return typeNames.size() - 1;
+
+    }
+
+    private void ensureCapacity(int capacity) {
+
+        if(capacity <= type.length)
+            return;
+
+        int newCapacity = Math.max(capacity, type.length * 2);
+        type      = Arrays.copyOf(type, newCapacity);
+        id        = Arrays.copyOf(id, newCapacity);
+        state     = Arrays.copyOf(state, newCapacity);
+        availTime = Arrays.copyOf(availTime, newCapacity);
+        cores     = Arrays.copyOf(cores, newCapacity);
+        memory    = Arrays.copyOf(memory, newCapacity);
+        disk      = Arrays.copyOf(disk, newCapacity);
+        changed   = Arrays.copyOf(changed, newCapacity);
+
+    }
+
+}
@@ -0,0 +1,64 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * Stream Transport
+ * A transport over an InputStream and OutputStream, which is how the client has always talked to the server through a
+ * blocking java.net.Socket. Every write goes straight to the stream so flush() has nothing to do for a socket.
+ *
+ * Also used with in-memory streams to run the client without a server, e.g. in benchmarks.
+ */
+public class StreamTransport implements Transport {
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final Socket socket;
+
+    public StreamTransport(InputStream in, OutputStream out) {
+        this(in, out, null);
+    }
+
+    private StreamTransport(InputStream in, OutputStream out, Socket socket) {
+        this.in = in;
+        this.out = out;
+        this.socket = socket;
+    }
+
+    /**
+     * Connect to the server using a blocking socket.
+     */
+    public static StreamTransport connect(String address, int port) throws IOException {
+
+        Socket socket = new Socket(address, port);
+        return new StreamTransport(socket.getInputStream(), socket.getOutputStream(), socket);
+
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return in.read(buffer, offset, length);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        out.write(buffer, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        out.close();
+        in.close();
+        if(socket != null)
+            socket.close();
+
+    }
+
+}
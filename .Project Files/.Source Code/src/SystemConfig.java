@@ -0,0 +1,209 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * System Config
+ * The server types and job types of a ds-sim config file (or the system.xml written by ds-server), read with a StAX
+ * stream reader in the same way as "Java XML Parser/Main.java". Only the attributes of the elements below are kept,
+ * no DOM is built, so very large generated configs are read in a single pass with little memory.
+ *
+ *      <config randomSeed="1024">
+ *          <server type="tiny" limit="20" bootupTime="60" hourlyRate="0.1" coreCount="1" memory="1000" disk="4000" />
+ *          <job type="short" minRunTime="1" maxRunTime="300" populationRate="20" />
+ *          <workload type="light" minLoad="10" maxLoad="30" />
+ *          <condition type="jobcount" value="50" />
+ *      </config>
+ *
+ * Server types are listed in the same order as the servers of a RESC All response. The system.xml written by ds-server
+ * names the hourly rate "rate" instead of "hourlyRate", either is read.
+ */
+public class SystemConfig {
+
+    public static class ServerType {
+        public String name;
+        public int limit, bootupTime, coreCount, memory, disk;
+        public double hourlyRate;
+    }
+
+    public static class JobType {
+        public String name;
+        public int minRunTime, maxRunTime, populationRate;
+    }
+
+    public final ArrayList<ServerType> serverTypes = new ArrayList<>();
+    public final ArrayList<JobType> jobTypes = new ArrayList<>();
+
+    public long randomSeed = 0;
+    public int minLoad = 10, maxLoad = 30;
+
+    // Termination conditions, -1 if the config does not have the condition
+    public int endTime = -1;
+    public int jobCount = -1;
+
+    /**
+     * Read a config file.
+     */
+    public static SystemConfig load(File file) throws IOException {
+
+        try(InputStream in = new FileInputStream(file)) {
+            return load(in);
+        }
+
+    }
+
+    /**
+     * Read a config from a stream, the stream is not closed.
+     */
+    public static SystemConfig load(InputStream in) throws IOException {
+
+        SystemConfig config = new SystemConfig();
+
+        try {
+
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+
+            while(reader.hasNext()) {
+
+                if(reader.next() == XMLStreamConstants.START_ELEMENT)
+                    config.readElement(reader);
+
+            }
+
+            reader.close();
+
+        } catch(XMLStreamException | NumberFormatException e) {
+            throw new IOException("Invalid config: " + e.getMessage(), e);
+        }
+
+        if(config.serverTypes.isEmpty())
+            throw new IOException("Invalid config: no server types.");
+
+        return config;
+
+    }
+
+    private void readElement(XMLStreamReader reader) {
+
+        String node = reader.getLocalName();
+
+        if(node.equals("config")) {
+
+            randomSeed = Long.parseLong(attribute(reader, "randomSeed", "0"));
+
+        } else if(node.equals("server")) {
+
+            ServerType type = new ServerType();
+            type.name       = attribute(reader, "type", "server" + serverTypes.size());
+            type.limit      = Integer.parseInt(attribute(reader, "limit", "1"));
+            type.bootupTime = Integer.parseInt(attribute(reader, "bootupTime", "0"));
+            type.hourlyRate = Double.parseDouble(attribute(reader, "hourlyRate", attribute(reader, "rate", "0")));
+            type.coreCount  = Integer.parseInt(attribute(reader, "coreCount", "1"));
+            type.memory     = Integer.parseInt(attribute(reader, "memory", "0"));
+            type.disk       = Integer.parseInt(attribute(reader, "disk", "0"));
+            serverTypes.add(type);
+
+        } else if(node.equals("job")) {
+
+            JobType type = new JobType();
+            type.name           = attribute(reader, "type", "job" + jobTypes.size());
+            type.minRunTime     = Integer.parseInt(attribute(reader, "minRunTime", "1"));
+            type.maxRunTime     = Integer.parseInt(attribute(reader, "maxRunTime", "1"));
+            type.populationRate = Integer.parseInt(attribute(reader, "populationRate", "0"));
+            jobTypes.add(type);
+
+        } else if(node.equals("workload")) {
+
+            minLoad = Integer.parseInt(attribute(reader, "minLoad", "10"));
+            maxLoad = Integer.parseInt(attribute(reader, "maxLoad", "30"));
+
+        } else if(node.equals("condition")) {
+
+            String type = attribute(reader, "type", "");
+            int value = Integer.parseInt(attribute(reader, "value", "0"));
+
+            if(type.equals("endtime"))
+                endTime = value;
+            else if(type.equals("jobcount"))
+                jobCount = value;
+
+        }
+
+    }
+
+    private static String attribute(XMLStreamReader reader, String name, String defaultValue) {
+
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : defaultValue;
+
+    }
+
+    /**
+     * @return the total number of servers of every type.
+     */
+    public int serverCount() {
+
+        int count = 0;
+        for(ServerType type: serverTypes)
+            count += type.limit;
+
+        return count;
+
+    }
+
+    /**
+     * @return the server type with the most cores, the first listed if more than one has the most.
+     */
+    public ServerType largestServerType() {
+
+        ServerType largest = serverTypes.get(0);
+        for(ServerType type: serverTypes) {
+            if(type.coreCount > largest.coreCount)
+                largest = type;
+        }
+
+        return largest;
+
+    }
+
+    /**
+     * @return the sum of the population rates of every job type.
+     */
+    public int totalPopulationRate() {
+
+        int total = 0;
+        for(JobType type: jobTypes)
+            total += type.populationRate;
+
+        return total;
+
+    }
+
+    /**
+     * @return the job type of a number picked from [0, totalPopulationRate()), each job type is picked in proportion
+     * to its population rate.
+     */
+    public JobType jobType(int pick) {
+
+        for(JobType type: jobTypes) {
+
+            if(pick < type.populationRate)
+                return type;
+
+            pick -= type.populationRate;
+
+        }
+
+        return jobTypes.get(jobTypes.size() - 1);
+
+    }
+
+}
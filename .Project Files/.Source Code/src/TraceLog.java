@@ -0,0 +1,218 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Trace Log
+ * Writes the protocol trace of verbose mode ("-v") without the scheduling thread waiting on the terminal or a file.
+ *
+ * The client copies each line into a ring buffer and carries on, a background thread drains everything in the ring in
+ * a single write every time it wakes up. The lines are the same as the ones println() used to write:
+ *
+ *      SENT: REDY
+ *      RCVD: JOBN 37 0 653 3 700 3800
+ *
+ * The ring has a single writer (the client session) and a single reader (the background thread), the positions are
+ * published with AtomicLong so neither side takes a lock. The client only waits if the ring is full, or when flush()
+ * is called so that anything printed afterwards appears after the trace.
+ */
+public class TraceLog {
+
+    private static final byte[] SENT = "SENT: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RCVD = "RCVD: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    // How long the background thread sleeps when the ring is empty
+    private static final long DRAIN_INTERVAL = 1000000;
+
+    private final byte[] ring;
+    private final int mask;
+
+    // Bytes written by the client, only used by the client thread
+    private long tail = 0;
+
+    // Bytes the background thread may read, and bytes it has written to the output
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+
+    private final OutputStream out;
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    /**
+     * @param capacity - the size of the ring in bytes, rounded up to a power of two.
+     */
+    public TraceLog(OutputStream out, int capacity) {
+
+        this.out = out;
+        ring = new byte[Integer.highestOneBit(Math.max(1024, capacity - 1)) << 1];
+        mask = ring.length - 1;
+
+        writer = new Thread(this::drain, "trace-log");
+        writer.setDaemon(true);
+        writer.start();
+
+    }
+
+    /**
+     * @return a trace log writing to the given file, or to the terminal if the file is null.
+     */
+    public static TraceLog open(String file) throws IOException {
+
+        OutputStream out = file != null ? new FileOutputStream(file) : new FileOutputStream(FileDescriptor.out);
+        TraceLog log = new TraceLog(out, 1 << 20);
+
+        // Anything left in the ring is written before the program exits
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close));
+        return log;
+
+    }
+
+    /**
+     * Log a command, the newline is added.
+     */
+    public void sent(byte[] command, int offset, int length) {
+        record(SENT, command, offset, length);
+    }
+
+    /**
+     * Log a reply, the newline is added.
+     */
+    public void received(byte[] line, int offset, int length) {
+        record(RCVD, line, offset, length);
+    }
+
+    /**
+     * Log that no reply was received.
+     */
+    public void receivedNothing() {
+        record(RCVD, NULL, 0, NULL.length);
+    }
+
+    /**
+     * Wait until everything logged so far has been written and flushed.
+     */
+    public void flush() {
+
+        while(consumed.get() < tail && !closed) {
+            LockSupport.unpark(writer);
+            Thread.yield();
+        }
+
+    }
+
+    /**
+     * Write everything logged so far and stop the background thread, nothing is logged afterwards.
+     */
+    public void close() {
+
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+    }
+
+    private void record(byte[] prefix, byte[] bytes, int offset, int length) {
+
+        if(closed)
+            return;
+
+        put(prefix, 0, prefix.length);
+        put(bytes, offset, length);
+        waitForSpace(1);
+        ring[(int) (tail & mask)] = '\n';
+        tail++;
+
+        published.lazySet(tail);
+
+    }
+
+    private void put(byte[] bytes, int offset, int length) {
+
+        while(length > 0) {
+
+            waitForSpace(1);
+
+            int position = (int) (tail & mask);
+            long free = ring.length - (tail - consumed.get());
+            int count = (int) Math.min(Math.min(length, free), ring.length - position);
+
+            System.arraycopy(bytes, offset, ring, position, count);
+            tail += count;
+            offset += count;
+            length -= count;
+
+        }
+
+    }
+
+    // Wait until the background thread has made room for the given number of bytes
+    private void waitForSpace(int bytes) {
+
+        while(ring.length - (tail - consumed.get()) < bytes && !closed) {
+            published.lazySet(tail);
+            LockSupport.unpark(writer);
+            Thread.yield();
+        }
+
+    }
+
+    // Background thread
+    private void drain() {
+
+        long head = 0;
+
+        while(true) {
+
+            long end = published.get();
+
+            if(end == head) {
+
+                if(closed)
+                    break;
+
+                LockSupport.parkNanos(DRAIN_INTERVAL);
+                continue;
+
+            }
+
+            try {
+
+                // The bytes may wrap around the end of the ring
+                int start = (int) (head & mask);
+                int length = (int) (end - head);
+                int first = Math.min(length, ring.length - start);
+
+                out.write(ring, start, first);
+                if(first < length)
+                    out.write(ring, 0, length - first);
+                out.flush();
+
+            } catch(IOException e) {
+                System.err.println(e);
+            }
+
+            head = end;
+            consumed.set(head);
+
+        }
+
+        try {
+            out.flush();
+        } catch(IOException e) {
+            System.err.println(e);
+        }
+
+    }
+
+}
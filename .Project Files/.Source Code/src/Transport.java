@@ -0,0 +1,35 @@
+import java.io.IOException;
+
+/**
+ * Transport
+ * Moves the bytes of the messages between the client and the server. MessageCodec encodes and decodes the messages
+ * and a Transport only reads and writes raw bytes, so the way the client is connected can be changed without changing
+ * the protocol code.
+ *
+ * Writes may be buffered by the transport, flush() is called once at the end of every exchange with the server so the
+ * whole command goes out together before the reply is waited for.
+ *
+ *      StreamTransport     - A blocking java.net.Socket or any other pair of streams ("-t socket", default).
+ *      ChannelTransport    - A java.nio SocketChannel using direct buffers and TCP_NODELAY ("-t nio").
+ */
+public interface Transport {
+
+    /**
+     * Read up to length bytes sent by the server, blocking until at least one byte is available.
+     * @return the number of bytes read, or -1 if the connection has been closed.
+     */
+    int read(byte[] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Write bytes to the server, the bytes may be held until flush() is called.
+     */
+    void write(byte[] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Send any bytes held by write() to the server.
+     */
+    void flush() throws IOException;
+
+    void close() throws IOException;
+
+}
@@ -0,0 +1,47 @@
+/**
+ * Weighted Fitness
+ * Scores a server by the weighted sum of the shares of its resources that would be left over once the job is placed,
+ * the weights are given as "-f weighted:cores,memory,disk" and are all 1 if not given. A weight of 0 ignores that
+ * resource, "-f weighted:1,0,0" compares cores in the same way as calculateFitnessValue().
+ *
+ * The weights are divided by their sum so the score is never more than SHARE.
+ */
+public class WeightedFitness implements Fitness {
+
+    private final double coresWeight, memoryWeight, diskWeight;
+    private int coresScale = SHARE, memoryScale = SHARE, diskScale = SHARE;
+
+    public WeightedFitness(double coresWeight, double memoryWeight, double diskWeight) {
+
+        double total = coresWeight + memoryWeight + diskWeight;
+        if(coresWeight < 0 || memoryWeight < 0 || diskWeight < 0 || !(total > 0))
+            throw new IllegalArgumentException("Weights must not be negative and at least one must be positive.");
+
+        this.coresWeight = coresWeight / total;
+        this.memoryWeight = memoryWeight / total;
+        this.diskWeight = diskWeight / total;
+
+    }
+
+    @Override
+    public void capacity(int cores, int memory, int disk) {
+
+        coresScale = (int) (coresWeight * SHARE / Math.max(1, cores));
+        memoryScale = (int) (memoryWeight * SHARE / Math.max(1, memory));
+        diskScale = (int) (diskWeight * SHARE / Math.max(1, disk));
+
+    }
+
+    @Override
+    public void score(int size, int[] cores, int[] memory, int[] disk, Job job, int[] scores) {
+
+        int jobCores = job.cores, jobMemory = job.memory, jobDisk = job.disk;
+
+        for(int i = 0; i < size; i++) {
+            scores[i] = (cores[i] - jobCores) * coresScale + (memory[i] - jobMemory) * memoryScale +
+                    (disk[i] - jobDisk) * diskScale;
+        }
+
+    }
+
+}
@@ -0,0 +1,364 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Workload Trace
+ * A compact binary recording of the workload of a session ("-e trace_file"), so the same job stream can be replayed
+ * against any scheduling policy without a server (see TraceReplay). Everything the client reads from the server that
+ * changes its decisions is recorded, along with the server it chose for each job:
+ *
+ *      TYPE        type_id name...                                     a server type name, one char per value, written
+ *                                                                      before its type id is first used
+ *      SERVERS     count (type_id server_ID server_state available_time #CPU_cores memory disk_space)...
+ *                                                                      a RESC All response
+ *      UPDATED     count (type_id server_ID server_state available_time #CPU_cores memory disk_space)...
+ *                                                                      the servers of the RESC Type responses of a
+ *                                                                      refresh, merged into the servers
+ *      JOB         submit_time job_ID estimated_runtime #CPU_cores memory disk     JOBN or JOBP
+ *      COMPLETED   end_time job_ID type_id server_ID                               JCPL
+ *      FAILED      time type_id server_ID                                          RESF
+ *      RECOVERED   time type_id server_ID                                          RESR
+ *      SCHEDULED   job_ID type_id server_ID                                        a SCHD accepted by the server
+ *
+ * A server that was not in the table when the event was read is written as type_id -1.
+ *
+ * The file is a header (magic, version) followed by the records, every value is a little endian int and every record
+ * is its kind, the number of values and the values. The file is written and read through memory mapped regions so a
+ * record is a few stores into memory rather than a write call, and traces of millions of jobs are not held on the
+ * heap. Regions are mapped from the end of the last record, so a record never spans two regions. The file is cut to
+ * its length on close(), a trace that was not closed ends at the first record of kind END (the zeros past the last
+ * record).
+ */
+public class WorkloadTrace implements Closeable {
+
+    // Record kinds
+    public static final int END       = 0;
+    public static final int TYPE      = 1;
+    public static final int SERVERS   = 2;
+    public static final int JOB       = 3;
+    public static final int COMPLETED = 4;
+    public static final int FAILED    = 5;
+    public static final int RECOVERED = 6;
+    public static final int SCHEDULED = 7;
+    public static final int UPDATED   = 8;
+
+    static final int MAGIC = 0x52545344; // "DSTR"
+    static final int VERSION = 1;
+
+    // Size of each region mapped while writing, larger if a single record needs more
+    private static final long REGION = 64L << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer region = null;
+    private long regionStart = 0;
+
+    // Number of server type names written so far, type ids are interned in order so only new ones are written
+    private int typesWritten = 0;
+    private boolean failed = false;
+
+    private WorkloadTrace(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return a new trace written to the given file, an existing file is replaced.
+     */
+    public static WorkloadTrace create(String file) throws IOException {
+
+        FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        WorkloadTrace trace = new WorkloadTrace(channel);
+        trace.reserve(2);
+        trace.region.putInt(MAGIC).putInt(VERSION);
+        return trace;
+
+    }
+
+    /**
+     * Record every server of a RESC All response.
+     */
+    public void servers(ServerTable servers) {
+
+        writeServers(SERVERS, servers, null, servers.size);
+
+    }
+
+    /**
+     * Record the servers of the given types (by type id) read by RESC Type.
+     */
+    public void updated(ServerTable servers, boolean[] types) {
+
+        int count = 0;
+        for(int i = 0; i < servers.size; i++) {
+            if(servers.type[i] < types.length && types[servers.type[i]])
+                count++;
+        }
+
+        writeServers(UPDATED, servers, types, count);
+
+    }
+
+    // Write the given number of servers, those of the given types or every server if types is null
+    private void writeServers(int kind, ServerTable servers, boolean[] types, int count) {
+
+        writeTypes(servers);
+        if(!reserve(3 + count * 7))
+            return;
+
+        region.putInt(kind).putInt(1 + count * 7).putInt(count);
+
+        for(int i = 0; i < servers.size; i++) {
+
+            if(types != null && (servers.type[i] >= types.length || !types[servers.type[i]]))
+                continue;
+
+            region.putInt(servers.type[i]).putInt(servers.id[i]).putInt(servers.state[i])
+                    .putInt(servers.availTime[i]).putInt(servers.cores[i]).putInt(servers.memory[i])
+                        .putInt(servers.disk[i]);
+
+        }
+
+    }
+
+    /**
+     * Record a reply to REDY, the server of the event is found in the given table. Replies that end the session are
+     * not recorded.
+     */
+    public void event(ServerEvent event, ServerTable servers) {
+
+        switch(event.type) {
+
+            case ServerEvent.JOB:
+                Job job = event.job;
+                if(reserve(8)) {
+                    region.putInt(JOB).putInt(6).putInt(job.submitTime).putInt(job.id).putInt(job.estRuntime)
+                            .putInt(job.cores).putInt(job.memory).putInt(job.disk);
+                }
+                break;
+
+            case ServerEvent.COMPLETED:
+                writeTypes(servers);
+                if(reserve(6)) {
+                    region.putInt(COMPLETED).putInt(4).putInt(event.time).putInt(event.jobID);
+                    putServer(servers, event.server);
+                }
+                break;
+
+            case ServerEvent.FAILED:
+            case ServerEvent.RECOVERED:
+                writeTypes(servers);
+                if(reserve(5)) {
+                    region.putInt(event.type == ServerEvent.FAILED ? FAILED : RECOVERED).putInt(3).putInt(event.time);
+                    putServer(servers, event.server);
+                }
+                break;
+
+            default:
+                break;
+
+        }
+
+    }
+
+    /**
+     * Record that the server accepted the job on server i of the given table.
+     */
+    public void scheduled(int jobID, ServerTable servers, int i) {
+
+        writeTypes(servers);
+        if(reserve(5)) {
+            region.putInt(SCHEDULED).putInt(3).putInt(jobID);
+            putServer(servers, i);
+        }
+
+    }
+
+    /**
+     * Mark the end of the trace and cut the file to its length.
+     */
+    public void close() {
+
+        try {
+
+            if(reserve(2))
+                region.putInt(END).putInt(0);
+
+            long length = regionStart + (region != null ? region.position() : 0);
+
+            // The file cannot be cut on some platforms while it is mapped, the END record then marks its length
+            try {
+                channel.truncate(length);
+            } catch(IOException e) {
+                // Keep the trailing zeros
+            }
+
+            channel.close();
+
+        } catch(IOException e) {
+            System.out.println(e);
+        }
+
+    }
+
+    private void putServer(ServerTable servers, int i) {
+
+        if(i >= 0 && i < servers.size)
+            region.putInt(servers.type[i]).putInt(servers.id[i]);
+        else
+            region.putInt(-1).putInt(-1);
+
+    }
+
+    // Write the names of the server types interned since the last record
+    private void writeTypes(ServerTable servers) {
+
+        while(typesWritten < servers.typeCount()) {
+
+            String name = servers.typeNameOf(typesWritten);
+            if(!reserve(3 + name.length()))
+                return;
+
+            region.putInt(TYPE).putInt(1 + name.length()).putInt(typesWritten);
+            for(int c = 0; c < name.length(); c++)
+                region.putInt(name.charAt(c));
+
+            typesWritten++;
+
+        }
+
+    }
+
+    // Make room for the given number of values in the current region, a new region is mapped if needed
+    private boolean reserve(int values) {
+
+        if(failed)
+            return false;
+
+        long bytes = values * 4L;
+        if(region != null && region.remaining() >= bytes)
+            return true;
+
+        try {
+
+            long position = regionStart + (region != null ? region.position() : 0);
+            region = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(REGION, bytes));
+            region.order(ByteOrder.LITTLE_ENDIAN);
+            regionStart = position;
+            return true;
+
+        } catch(IOException e) {
+            System.out.println(e);
+            failed = true;
+            return false;
+        }
+
+    }
+
+    /**
+     * @return a reader of the trace in the given file.
+     */
+    public static Reader open(String file) throws IOException {
+        return new Reader(FileChannel.open(Paths.get(file), StandardOpenOption.READ));
+    }
+
+    /**
+     * Reads the records of a trace one at a time, the values of each record are in values and the name of a TYPE
+     * record is in name. The arrays are reused for every record.
+     */
+    public static class Reader implements Closeable {
+
+        public int kind = END;
+        public int length = 0;
+        public int[] values = new int[16];
+        public String name = null;
+
+        private final FileChannel channel;
+        private final long fileSize;
+        private IntBuffer region = null;
+        private long regionStart = 0;
+
+        private Reader(FileChannel channel) throws IOException {
+
+            this.channel = channel;
+            fileSize = channel.size();
+
+            if(!ensure(2) || region.get() != MAGIC) {
+                channel.close();
+                throw new IOException("Not a workload trace.");
+            }
+
+            if(region.get() != VERSION) {
+                channel.close();
+                throw new IOException("Unsupported workload trace version.");
+            }
+
+        }
+
+        /**
+         * Read the next record.
+         * @return false once the end of the trace has been reached.
+         */
+        public boolean next() throws IOException {
+
+            if(!ensure(2)) {
+                kind = END;
+                return false;
+            }
+
+            kind = region.get();
+            length = region.get();
+
+            if(kind == END || length < 0 || !ensure(length)) {
+                kind = END;
+                return false;
+            }
+
+            if(values.length < length)
+                values = new int[Math.max(length, values.length * 2)];
+            region.get(values, 0, length);
+
+            if(kind == TYPE) {
+
+                char[] chars = new char[length - 1];
+                for(int c = 0; c < chars.length; c++)
+                    chars[c] = (char) values[c + 1];
+                name = new String(chars);
+
+            }
+
+            return true;
+
+        }
+
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        // Make sure the given number of values can be read from the current region, a new region is mapped if needed
+        private boolean ensure(int values) throws IOException {
+
+            if(region != null && region.remaining() >= values)
+                return true;
+
+            long position = regionStart + (region != null ? region.position() * 4L : 0);
+            if(position + values * 4L > fileSize)
+                return false;
+
+            // Values are read in bulk through an int view of the region
+            long size = Math.min(fileSize - position, Integer.MAX_VALUE) & ~3L;
+            region = channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            regionStart = position;
+            return true;
+
+        }
+
+    }
+
+}
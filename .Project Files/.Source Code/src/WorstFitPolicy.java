@@ -0,0 +1,45 @@
+/**
+ * Worst-Fit Algorithm
+ * Schedules a job to the worst-fit server that has sufficient resources to run the job, if none are found, the
+ * second worst-fit (altFit), if none are found, the worst-fit active server based on initial resource capacity.
+ *
+ * The worst-fit is calculated similarly to best-fit in that a fitness value is calculated, however the worst-fit
+ * server is found when a server has the biggest fitness value (Larger the better). The worst-fit must be immediately
+ * available, the second worst-fit is a server that is not immediately available (Inactive State).
+ *
+ * With a fitness given by "-f" all three resources are compared instead, see Client.findFittest().
+ */
+public class WorstFitPolicy implements SchedulingPolicy {
+
+    private Client client;
+    private final ServerIndex serverIndex = new ServerIndex();
+
+    @Override
+    public String name() {
+        return "wf";
+    }
+
+    @Override
+    public void onInit(Client client) {
+        this.client = client;
+    }
+
+    // Syncing the index leaves select() the same servers to choose from
+    @Override
+    public int predict(Job job) {
+        return select(job);
+    }
+
+    @Override
+    public int select(Job job) {
+
+        if(client.fitness != null)
+            return client.findFittest(job, false);
+
+        serverIndex.sync(client.allServerInfo, client.initialAllServerInfo);
+
+        return serverIndex.worstFit(job);
+
+    }
+
+}